@@ -0,0 +1,38 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+
+import java.util.concurrent.Executors;
+
+/**
+ * Обработка запросов на виртуальных потоках (Java 21, профиль сборки virtual-threads)
+ * <p>
+ * Каждый HTTP-запрос Tomcat и каждая асинхронная выгрузка (StreamingResponseBody) выполняются в отдельном
+ * виртуальном потоке, поэтому вызовы JdbcTemplate в хранилищах не занимают потоки платформы на время ожидания.
+ * Число одновременно выполняемых запросов к базе ограничивает только пул соединений Hikari.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "filmorate.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadsConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadsProtocolHandlerCustomizer() {
+        log.info("Запросы обрабатываются на виртуальных потоках");
+        return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(Executors.newVirtualThreadPerTaskExecutor());
+    }
+}
@@ -0,0 +1,99 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Общие друзья при разном размере списка друзей: одним запросом к БД, пересечением двух списков id
+ * из БД (прежняя реализация) и слиянием отсортированных массивов в InMemoryUserStorage
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CommonFriendsBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Friends {
+        @Param({"10", "1000", "100000"})
+        public int friends;
+
+        ConfigurableApplicationContext context;
+        UserDbStorage userStorage;
+        InMemoryUserStorage inMemoryStorage;
+
+        /**
+         * У пользователей 1 и 2 по friends друзей, общая из них половина
+         */
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = SeededDatabase.start("jdbc:h2:mem:common-friends-" + friends);
+            userStorage = context.getBean(UserDbStorage.class);
+            inMemoryStorage = context.getBean(InMemoryUserStorage.class);
+
+            int users = 2 + friends + friends / 2;
+            SeededDatabase.seedUsers(userStorage, users);
+            userStorage.getUsersByIds(range(users)).forEach(inMemoryStorage::add);
+
+            List<Friendship> friendships = new ArrayList<>(friends * 2);
+            for (int i = 0; i < friends; i++) {
+                friendships.add(new Friendship(1, 3 + i));
+                friendships.add(new Friendship(2, 3 + friends / 2 + i));
+            }
+            userStorage.addFriends(friendships, 1000);
+            inMemoryStorage.addFriends(friendships, 1000);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+
+        private static List<Long> range(int count) {
+            List<Long> ids = new ArrayList<>(count);
+            for (long id = 1; id <= count; id++) {
+                ids.add(id);
+            }
+            return ids;
+        }
+    }
+
+    @Benchmark
+    public List<User> sqlJoin(Friends state) {
+        return state.userStorage.getCommonFriends(1, 2);
+    }
+
+    @Benchmark
+    public List<User> retainAll(Friends state) {
+        Set<Long> common = state.userStorage.getFriendsIdListByUserId(1);
+        common.retainAll(state.userStorage.getFriendsIdListByUserId(2));
+        return state.userStorage.getUsersByIds(common);
+    }
+
+    @Benchmark
+    public List<User> inMemoryMerge(Friends state) {
+        return state.inMemoryStorage.getCommonFriends(1, 2);
+    }
+}
@@ -0,0 +1,118 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genres;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтение и запись фильмов через FilmDbStorage и FilmService
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FilmStorageBenchmark {
+
+    @Benchmark
+    public List<Film> getFilmAll(SeededDatabase db) {
+        return db.filmStorage.getFilmAll();
+    }
+
+    @Benchmark
+    public Film getFilmById(SeededDatabase db) {
+        return db.filmStorage.getFilmById(db.randomFilmId());
+    }
+
+    /**
+     * Запрос к базе по индексу films_likes_count_idx, без рейтинга в памяти
+     */
+    @Benchmark
+    public List<Film> getPopularFilms(SeededDatabase db) {
+        return db.filmStorage.getPopularFilms(10);
+    }
+
+    /**
+     * Id из рейтинга в памяти и загрузка фильмов по ним, как в /films/popular
+     */
+    @Benchmark
+    public List<Film> getPopularFilmsFromIndex(SeededDatabase db) {
+        return db.filmService.getPopularFilms(10);
+    }
+
+    /**
+     * Лайк и его удаление, чтобы пары фильм-пользователь не заканчивались и размер данных не рос.
+     * Лайки ставят только пользователи без заполненных лайков, поэтому вставка не натыкается на существующую
+     * пару, а удаление не трогает заполненные данные
+     */
+    @Benchmark
+    public boolean addAndDeleteLike(SeededDatabase db, LikingUser user) {
+        long filmId = db.randomFilmId();
+        long userId = user.next(db);
+        return db.filmStorage.addLike(filmId, userId) & db.filmStorage.deleteLike(filmId, userId);
+    }
+
+    @Benchmark
+    public Film addFilm(SeededDatabase db) {
+        return db.filmStorage.add(film(0));
+    }
+
+    @Benchmark
+    public Film updateFilm(SeededDatabase db) {
+        return db.filmStorage.update(film(db.randomFilmId()));
+    }
+
+    /**
+     * Пользователи потока по кругу: потоки берут id без лайков через одного, со сдвигом на номер потока,
+     * так что два потока не ставят лайк от одного пользователя
+     */
+    @State(Scope.Thread)
+    public static class LikingUser {
+        private long offset;
+        private int step;
+        private long counter;
+
+        @Setup(Level.Trial)
+        public void setUp(ThreadParams threads) {
+            offset = threads.getThreadIndex();
+            step = threads.getThreadCount();
+        }
+
+        long next(SeededDatabase db) {
+            long free = db.rows - db.likingUsers();
+            if (free < step) {
+                throw new IllegalStateException("Пользователей без лайков меньше, чем потоков: " + free);
+            }
+            long perThread = free / step;
+            return db.likingUsers() + 1 + offset + step * (counter++ % perThread);
+        }
+    }
+
+    private static Film film(long id) {
+        return Film.builder()
+                .id(id)
+                .name("Benchmark film")
+                .description("Benchmark description")
+                .releaseDate(LocalDate.of(2010, 1, 1))
+                .duration(120)
+                .mpa(new Mpa(3, null))
+                .genres(List.of(Genres.builder().id(1).build(), Genres.builder().id(2).build()))
+                .build();
+    }
+}
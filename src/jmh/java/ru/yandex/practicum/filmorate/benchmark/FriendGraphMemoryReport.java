@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ru.yandex.practicum.filmorate.storage.FriendGraph;
+
+import java.util.Locale;
+
+/**
+ * Замер памяти графа дружбы на больших объёмах, которые не помещаются в модульные тесты
+ * <p>
+ * Строится граф из --edges рёбер (по умолчанию 10 000 000) по --friends друзей у каждого пользователя,
+ * печатается оценка {@link FriendGraph#estimateBytes()} на ребро и прирост занятой кучи после сборки мусора,
+ * чтобы оценку можно было сверить с фактическим расходом.
+ * <p>
+ * Запуск (куче нужно не меньше 1 ГБ):
+ * ./mvnw -P benchmark compile exec:java -Dexec.mainClass=ru.yandex.practicum.filmorate.benchmark.FriendGraphMemoryReport
+ * -Dexec.args="--edges 10000000 --friends 100"
+ */
+public class FriendGraphMemoryReport {
+
+    public static void main(String[] args) {
+        long edges = Long.parseLong(option(args, "--edges", "10000000"));
+        int friendsPerUser = Integer.parseInt(option(args, "--friends", "100"));
+        int users = (int) (edges / friendsPerUser);
+
+        long heapBefore = usedHeap();
+        long started = System.nanoTime();
+        FriendGraph graph = new FriendGraph(users);
+        for (long user = 0; user < users; user++) {
+            for (int k = 0; k < friendsPerUser; k++) {
+                graph.addEdge(user, (user * 31 + k * 977L) % users);
+            }
+        }
+        graph.trimToSize();
+        long buildMillis = (System.nanoTime() - started) / 1_000_000;
+        long heapAfter = usedHeap();
+
+        System.out.printf(Locale.ROOT, "Пользователей: %d, рёбер: %d, построение: %d ms%n",
+                graph.vertexCount(), graph.edgeCount(), buildMillis);
+        System.out.printf(Locale.ROOT, "Оценка estimateBytes: %d байт, %.2f байт на ребро%n",
+                graph.estimateBytes(), (double) graph.estimateBytes() / graph.edgeCount());
+        System.out.printf(Locale.ROOT, "Прирост кучи: %d байт, %.2f байт на ребро%n",
+                heapAfter - heapBefore, (double) (heapAfter - heapBefore) / graph.edgeCount());
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static String option(String[] args, String name, String defaultValue) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals(name)) {
+                return args[i + 1];
+            }
+        }
+        return defaultValue;
+    }
+}
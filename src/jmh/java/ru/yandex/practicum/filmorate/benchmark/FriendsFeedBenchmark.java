@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Лента пользователя 1 одним запросом при разном числе друзей: у каждого друга {@link #LIKES} лайков
+ * среди {@link #FILMS} фильмов, часть которых лайкнул и сам пользователь. Цель — меньше 20 мс на 5000 друзей.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FriendsFeedBenchmark {
+    static final int FILMS = 10_000;
+    static final int LIKES = 20;
+
+    @State(Scope.Benchmark)
+    public static class Feed {
+        @Param({"100", "1000", "5000"})
+        public int friends;
+
+        ConfigurableApplicationContext context;
+        FilmDbStorage filmStorage;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = SeededDatabase.start("jdbc:h2:mem:friends-feed-" + friends);
+            filmStorage = context.getBean(FilmDbStorage.class);
+            UserDbStorage userStorage = context.getBean(UserDbStorage.class);
+
+            SeededDatabase.seedUsers(userStorage, 1 + friends);
+            SeededDatabase.seedFilms(filmStorage, FILMS);
+
+            List<Friendship> friendships = new ArrayList<>(friends);
+            for (int i = 0; i < friends; i++) {
+                friendships.add(new Friendship(1, 2 + i));
+            }
+            userStorage.addFriends(friendships, 1000);
+
+            Random random = new Random(1);
+            List<FilmLike> likes = new ArrayList<>();
+            for (long userId = 1; userId <= 1 + friends; userId++) {
+                long first = 1 + random.nextInt(FILMS - LIKES);
+                for (int i = 0; i < LIKES; i++) {
+                    likes.add(new FilmLike(first + i, userId));
+                }
+            }
+            filmStorage.addLikes(likes, 1000);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public List<Film> sqlFeed(Feed state) {
+        return state.filmStorage.getFriendsFeed(1, 10);
+    }
+}
@@ -0,0 +1,70 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Вставка пользователей из 64 потоков: SimpleJdbcInsert, создаваемый на каждый вызов (прежняя реализация
+ * UserDbStorage.add, читает метаданные таблицы перед каждой вставкой), против текущего UserDbStorage.add
+ * с заранее собранным запросом
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(64)
+public class InsertBenchmark {
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+    private UserDbStorage userStorage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = SeededDatabase.start("jdbc:h2:mem:insert");
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        userStorage = context.getBean(UserDbStorage.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long simpleJdbcInsertPerCall() {
+        SimpleJdbcInsert simpleJdbcInsert = new SimpleJdbcInsert(jdbcTemplate)
+                .withTableName("users")
+                .usingGeneratedKeyColumns("id");
+        return simpleJdbcInsert.executeAndReturnKey(user().toMap()).longValue();
+    }
+
+    @Benchmark
+    public long precompiledInsert() {
+        return userStorage.add(user()).getId();
+    }
+
+    private static User user() {
+        return new User("user@mail.ru", "user", "User", LocalDate.of(1990, 1, 1));
+    }
+}
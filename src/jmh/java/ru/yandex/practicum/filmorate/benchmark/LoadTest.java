@@ -0,0 +1,263 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Нагрузочный тест запущенного приложения: поиск точки насыщения для /films/popular и /users/{id}/friends
+ * <p>
+ * Для каждого эндпоинта число клиентов растёт ступенями (по умолчанию до 200). Каждый клиент отправляет следующий запрос
+ * сразу после ответа на предыдущий (закрытая модель), на каждой ступени замеряются пропускная способность
+ * и перцентили задержки. Точка насыщения — последняя ступень, после которой пропускная способность выросла
+ * меньше чем на 10%: дальше добавление клиентов увеличивает только задержку.
+ * <p>
+ * Запуск (приложение уже запущено с профилем production):
+ * ./mvnw -P benchmark compile exec:java -Dexec.mainClass=ru.yandex.practicum.filmorate.benchmark.LoadTest
+ * -Dexec.args="--url http://localhost:8080 --seed 100000 --step-seconds 20"
+ * <p>
+ * Ступени задаются флагом --clients, например --clients 1,100,500,1000 для сравнения потоков платформы
+ * и виртуальных потоков (профиль virtual-threads) при 1000 соединений.
+ * <p>
+ * С флагом --seed данные загружаются через /import: seed пользователей и фильмов, по 100 друзей
+ * и лайков у первых пользователей. Результат печатается таблицей и сохраняется в target/load-test.json.
+ */
+public class LoadTest {
+    private static final String DEFAULT_CLIENTS = "1,10,25,50,100,150,200";
+    private static final double KNEE_GAIN = 0.10;
+    private static final int FRIENDS = 100;
+
+    private final HttpClient httpClient;
+    private final String url;
+    private final Duration stepDuration;
+    private final long users;
+    private final int[] clients;
+
+    LoadTest(String url, Duration stepDuration, long users, int[] clients) {
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newFixedThreadPool(32))
+                .build();
+        this.url = url;
+        this.stepDuration = stepDuration;
+        this.users = users;
+        this.clients = clients;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = option(args, "--url", "http://localhost:8080");
+        long seed = Long.parseLong(option(args, "--seed", "0"));
+        long users = Long.parseLong(option(args, "--users", seed > 0 ? String.valueOf(seed) : "1000"));
+        Duration step = Duration.ofSeconds(Long.parseLong(option(args, "--step-seconds", "20")));
+        Path result = Path.of(option(args, "--out", "target/load-test.json"));
+        int[] clients = Arrays.stream(option(args, "--clients", DEFAULT_CLIENTS).split(","))
+                .mapToInt(Integer::parseInt)
+                .toArray();
+
+        LoadTest loadTest = new LoadTest(url, step, users, clients);
+        if (seed > 0) {
+            loadTest.seed(seed);
+        }
+        List<Step> popular = loadTest.run("/films/popular", id -> "/films/popular?count=10");
+        List<Step> friends = loadTest.run("/users/{id}/friends",
+                id -> "/users/" + (1 + id % Math.min(users, FRIENDS)) + "/friends");
+
+        Files.createDirectories(result.toAbsolutePath().getParent());
+        Files.writeString(result, "{\"/films/popular\":" + toJson(popular)
+                + ",\"/users/{id}/friends\":" + toJson(friends) + "}\n");
+        System.out.println("Результат сохранён в " + result.toAbsolutePath());
+        System.exit(0);
+    }
+
+    /**
+     * Прогон ступеней нагрузки для одного эндпоинта
+     */
+    List<Step> run(String name, LongFunction<String> path) throws InterruptedException {
+        System.out.printf("%n%s%n%8s %12s %10s %10s %10s %8s%n", name, "clients", "req/s", "p50 ms", "p99 ms",
+                "max ms", "errors");
+        warmUp(path);
+
+        List<Step> steps = new ArrayList<>();
+        for (int count : clients) {
+            Step step = step(count, path);
+            steps.add(step);
+            System.out.printf(Locale.ROOT, "%8d %12.1f %10.2f %10.2f %10.2f %8d%n", step.clients, step.throughput,
+                    step.p50 / 1e6, step.p99 / 1e6, step.max / 1e6, step.errors);
+        }
+        Step knee = knee(steps);
+        System.out.printf("Точка насыщения: %d клиентов, %.1f req/s, p99 %.2f ms%n",
+                knee.clients, knee.throughput, knee.p99 / 1e6);
+        return steps;
+    }
+
+    private void warmUp(LongFunction<String> path) throws InterruptedException {
+        System.out.printf("(прогрев %d с)%n", stepDuration.toSeconds());
+        step(10, path);
+    }
+
+    private Step step(int clients, LongFunction<String> path) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        long[][] latencies = new long[clients][];
+        int[] counts = new int[clients];
+        AtomicLong errors = new AtomicLong();
+        long deadline = System.nanoTime() + stepDuration.toNanos();
+
+        for (int client = 0; client < clients; client++) {
+            int index = client;
+            executor.execute(() -> {
+                long[] samples = new long[1024];
+                int count = 0;
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    if (!send(path.apply(ThreadLocalRandom.current().nextLong(Long.MAX_VALUE)))) {
+                        errors.incrementAndGet();
+                    }
+                    if (count == samples.length) {
+                        samples = Arrays.copyOf(samples, count * 2);
+                    }
+                    samples[count++] = System.nanoTime() - start;
+                }
+                latencies[index] = samples;
+                counts[index] = count;
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(stepDuration.toSeconds() + 60, TimeUnit.SECONDS);
+
+        int total = Arrays.stream(counts).sum();
+        long[] all = new long[total];
+        for (int client = 0, offset = 0; client < clients; client++) {
+            System.arraycopy(latencies[client], 0, all, offset, counts[client]);
+            offset += counts[client];
+        }
+        Arrays.sort(all);
+        return new Step(clients, total / (double) stepDuration.toSeconds(), percentile(all, 0.50),
+                percentile(all, 0.99), total == 0 ? 0 : all[total - 1], errors.get());
+    }
+
+    private boolean send(String path) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url + path))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Загрузка пользователей, фильмов, дружбы и лайков через /import
+     */
+    void seed(long count) {
+        System.out.printf("Загрузка %d пользователей и фильмов%n", count);
+        post("/import/users", count, i -> String.format(
+                "{\"email\":\"user%d@mail.ru\",\"login\":\"user%d\",\"name\":\"User %d\",\"birthday\":\"1990-01-01\"}",
+                i, i, i));
+        post("/import/films", count, i -> String.format("{\"name\":\"Film %d\",\"description\":\"Description %d\","
+                        + "\"releaseDate\":\"2000-01-01\",\"duration\":%d,\"mpa\":{\"id\":%d},\"genres\":[{\"id\":%d}]}",
+                i, i, 90 + i % 60, 1 + i % 5, 1 + i % 6));
+
+        long friendsOf = Math.min(count, FRIENDS);
+        post("/import/friendships", friendsOf * friendsOf, i -> String.format("{\"userId\":%d,\"friendId\":%d}",
+                1 + (i - 1) / friendsOf, 1 + (i - 1) % friendsOf));
+        post("/import/likes", friendsOf * friendsOf, i -> String.format("{\"filmId\":%d,\"userId\":%d}",
+                1 + (i - 1) % count, 1 + (i - 1) / friendsOf));
+    }
+
+    private void post(String path, long count, LongFunction<String> line) {
+        StringBuilder body = new StringBuilder();
+        for (long i = 1; i <= count; i++) {
+            body.append(line.apply(i)).append('\n');
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url + path))
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            System.out.printf("%s: %d %s%n", path, response.statusCode(), response.body());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Последняя ступень перед той, на которой пропускная способность почти перестала расти
+     */
+    static Step knee(List<Step> steps) {
+        for (int i = 1; i < steps.size(); i++) {
+            if (steps.get(i).throughput < steps.get(i - 1).throughput * (1 + KNEE_GAIN)) {
+                return steps.get(i - 1);
+            }
+        }
+        return steps.get(steps.size() - 1);
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)];
+    }
+
+    private static String toJson(List<Step> steps) {
+        Step knee = knee(steps);
+        return steps.stream()
+                .map(step -> String.format(Locale.ROOT, "{\"clients\":%d,\"throughput\":%.1f,\"p50Ms\":%.3f,"
+                                + "\"p99Ms\":%.3f,\"maxMs\":%.3f,\"errors\":%d,\"knee\":%b}", step.clients,
+                        step.throughput, step.p50 / 1e6, step.p99 / 1e6, step.max / 1e6, step.errors, step == knee))
+                .collect(Collectors.joining(",", "[", "]"));
+    }
+
+    private static String option(String[] args, String name, String defaultValue) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals(name)) {
+                return args[i + 1];
+            }
+        }
+        return defaultValue;
+    }
+
+    static class Step {
+        final int clients;
+        final double throughput;
+        final long p50;
+        final long p99;
+        final long max;
+        final long errors;
+
+        Step(int clients, double throughput, long p50, long p99, long max, long errors) {
+            this.clients = clients;
+            this.throughput = throughput;
+            this.p50 = p50;
+            this.p99 = p99;
+            this.max = max;
+            this.errors = errors;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.Genres;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.PopularityIndex;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Контекст приложения поверх встроенной H2 в памяти, заполненной rows пользователями и фильмами
+ * <p>
+ * Лайки (тоже rows штук) распределены поровну между 1% фильмов, поэтому рейтинг популярности
+ * не вырожден. У пользователей 1 и 2 по {@link #FRIENDS} друзей, половина из них общая.
+ */
+@State(Scope.Benchmark)
+public class SeededDatabase {
+    static final int FRIENDS = 1000;
+    private static final int CHUNK_SIZE = 10_000;
+    private static final int BATCH_SIZE = 1000;
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    ConfigurableApplicationContext context;
+    FilmDbStorage filmStorage;
+    UserDbStorage userStorage;
+    FilmService filmService;
+    UserService userService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = start("jdbc:h2:mem:benchmark-" + rows);
+        filmStorage = context.getBean(FilmDbStorage.class);
+        userStorage = context.getBean(UserDbStorage.class);
+        filmService = context.getBean(FilmService.class);
+        userService = context.getBean(UserService.class);
+
+        seedUsers(userStorage, rows);
+        seedFilms(filmStorage, rows);
+        seedLikes();
+        seedFriends();
+        context.getBean(PopularityIndex.class).load();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    long randomFilmId() {
+        return ThreadLocalRandom.current().nextLong(1, rows + 1);
+    }
+
+    long randomUserId() {
+        return ThreadLocalRandom.current().nextLong(1, rows + 1);
+    }
+
+    /**
+     * Количество пользователей с лайками из {@link #seedLikes()}: у пользователей с большими id лайков нет
+     */
+    int likingUsers() {
+        int hotFilms = hotFilms();
+        return (rows + hotFilms - 1) / hotFilms;
+    }
+
+    private int hotFilms() {
+        return Math.max(1, rows / 100);
+    }
+
+    static ConfigurableApplicationContext start(String url) {
+        return new SpringApplicationBuilder(FilmorateApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=" + url,
+                        "logging.level.ru.yandex.practicum=warn")
+                .run();
+    }
+
+    static void seedUsers(UserDbStorage userStorage, int count) {
+        List<User> users = new ArrayList<>(Math.min(count, CHUNK_SIZE));
+        for (int i = 1; i <= count; i++) {
+            users.add(new User("user" + i + "@mail.ru", "user" + i, "User " + i, LocalDate.of(1990, 1, 1)));
+            if (users.size() == CHUNK_SIZE || i == count) {
+                userStorage.addAll(users, BATCH_SIZE);
+                users.clear();
+            }
+        }
+    }
+
+    static void seedFilms(FilmDbStorage filmStorage, int count) {
+        List<Film> films = new ArrayList<>(Math.min(count, CHUNK_SIZE));
+        for (int i = 1; i <= count; i++) {
+            films.add(Film.builder()
+                    .name("Film " + i)
+                    .description("Description " + i)
+                    .releaseDate(LocalDate.of(2000, 1, 1).plusDays(i % 7000))
+                    .duration(90 + i % 60)
+                    .mpa(new Mpa(1 + i % 5, null))
+                    .genres(List.of(Genres.builder().id(1 + i % 6).build()))
+                    .build());
+            if (films.size() == CHUNK_SIZE || i == count) {
+                filmStorage.addAll(films, BATCH_SIZE);
+                films.clear();
+            }
+        }
+    }
+
+    private void seedLikes() {
+        int hotFilms = hotFilms();
+        List<FilmLike> likes = new ArrayList<>(Math.min(rows, CHUNK_SIZE));
+        for (int i = 0; i < rows; i++) {
+            likes.add(new FilmLike(1 + i % hotFilms, 1 + i / hotFilms));
+            if (likes.size() == CHUNK_SIZE || i == rows - 1) {
+                filmStorage.addLikes(likes, BATCH_SIZE);
+                likes.clear();
+            }
+        }
+    }
+
+    private void seedFriends() {
+        int friends = Math.min(FRIENDS, rows - 2);
+        List<Friendship> friendships = new ArrayList<>(friends * 2);
+        for (int i = 0; i < friends; i++) {
+            friendships.add(new Friendship(1, 3 + i));
+            if (i % 2 == 0) {
+                friendships.add(new Friendship(2, 3 + i));
+            } else {
+                friendships.add(new Friendship(2, 3 + friends + i));
+            }
+        }
+        friendships.removeIf(friendship -> friendship.getFriendId() > rows);
+        userStorage.addFriends(friendships, BATCH_SIZE);
+    }
+}
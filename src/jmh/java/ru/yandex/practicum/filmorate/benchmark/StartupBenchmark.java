@@ -0,0 +1,118 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Время от запуска приложения до первого успешного ответа GET /films/popular на файловой базе заданного размера
+ * <p>
+ * База заполняется один раз до --size-mb мегабайт (по умолчанию 1024), после чего приложение несколько раз
+ * запускается в обычном режиме и в режиме быстрого старта. Запуск:
+ * ./mvnw -P benchmark compile exec:java -Dexec.mainClass=ru.yandex.practicum.filmorate.benchmark.StartupBenchmark
+ * -Dexec.args="--db target/startup/filmorate --size-mb 1024 --runs 5"
+ * <p>
+ * Результат печатается и сохраняется в target/startup.json.
+ */
+public class StartupBenchmark {
+    private static final int CHUNK = 100_000;
+
+    public static void main(String[] args) throws Exception {
+        Path db = Path.of(option(args, "--db", "target/startup/filmorate")).toAbsolutePath();
+        long sizeMb = Long.parseLong(option(args, "--size-mb", "1024"));
+        int runs = Integer.parseInt(option(args, "--runs", "5"));
+        Path result = Path.of(option(args, "--out", "target/startup.json"));
+        String url = "jdbc:h2:file:" + db;
+
+        seed(url, db, sizeMb);
+
+        List<String> modes = new ArrayList<>();
+        for (boolean fastStart : new boolean[]{false, true}) {
+            List<Long> times = new ArrayList<>();
+            for (int run = 0; run < runs; run++) {
+                times.add(timeToFirstRequest(url, fastStart));
+            }
+            System.out.printf("fast-start=%b: %s мс%n", fastStart, times);
+            modes.add(String.format(Locale.ROOT, "\"fastStart=%b\":%s", fastStart, times));
+        }
+        Files.createDirectories(result.toAbsolutePath().getParent());
+        Files.writeString(result, String.format(Locale.ROOT, "{\"sizeMb\":%d,%s}%n", size(db) >> 20,
+                String.join(",", modes)));
+        System.out.println("Результат сохранён в " + result.toAbsolutePath());
+    }
+
+    /**
+     * Заполнение базы пользователями, фильмами и лайками, пока файл не достигнет нужного размера
+     */
+    private static void seed(String url, Path db, long sizeMb) throws IOException {
+        if (size(db) >= sizeMb << 20) {
+            return;
+        }
+        try (ConfigurableApplicationContext context = SeededDatabase.start(url)) {
+            FilmDbStorage filmStorage = context.getBean(FilmDbStorage.class);
+            UserDbStorage userStorage = context.getBean(UserDbStorage.class);
+            Map<Long, Long> likesByFilm = filmStorage.getLikesCountByFilm();
+            if (likesByFilm.isEmpty()) {
+                SeededDatabase.seedUsers(userStorage, CHUNK);
+                SeededDatabase.seedFilms(filmStorage, CHUNK);
+            }
+            long users = CHUNK;
+            long offset = likesByFilm.values().stream().mapToLong(Long::longValue).sum();
+            while (size(db) < sizeMb << 20) {
+                List<FilmLike> likes = new ArrayList<>(CHUNK);
+                for (int i = 0; i < CHUNK; i++, offset++) {
+                    likes.add(new FilmLike(1 + offset % users, 1 + (offset / users) % users));
+                }
+                filmStorage.addLikes(likes, 1000);
+                System.out.printf("База: %d МБ%n", size(db) >> 20);
+            }
+        }
+    }
+
+    private static long timeToFirstRequest(String url, boolean fastStart) throws Exception {
+        long start = System.nanoTime();
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(FilmorateApplication.class)
+                .run("--spring.datasource.url=" + url, "--server.port=0",
+                        "--filmorate.startup.fast-start=" + fastStart, "--logging.level.root=warn")) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/films/popular"))
+                    .GET()
+                    .build();
+            HttpClient httpClient = HttpClient.newHttpClient();
+            while (httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200) {
+                Thread.sleep(10);
+            }
+            return (System.nanoTime() - start) / 1_000_000;
+        }
+    }
+
+    private static long size(Path db) throws IOException {
+        Path file = Path.of(db + ".mv.db");
+        return Files.exists(file) ? Files.size(file) : 0;
+    }
+
+    private static String option(String[] args, String name, String defaultValue) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals(name)) {
+                return args[i + 1];
+            }
+        }
+        return defaultValue;
+    }
+}
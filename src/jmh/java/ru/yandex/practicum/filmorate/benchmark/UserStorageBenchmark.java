@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Друзья и общие друзья пользователей 1 и 2 из {@link SeededDatabase}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class UserStorageBenchmark {
+
+    @Benchmark
+    public List<User> getFriendList(SeededDatabase db) {
+        return db.userStorage.getFriendList(1);
+    }
+
+    @Benchmark
+    public List<User> getCommonFriends(SeededDatabase db) {
+        return db.userService.getCommonFriends(1, 2);
+    }
+
+    @Benchmark
+    public User getUserById(SeededDatabase db) {
+        return db.userStorage.getUserById(db.randomUserId());
+    }
+}
@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Задержка поиска по индексу FilmSearchIndex на 1 млн фильмов, p99 смотреть в колонке p0.99 режима SampleTime
+ * <p>
+ * Названия и описания собираются из словаря русских слов с распределением Ципфа: частые слова встречаются
+ * в сотнях тысяч фильмов, редкие — в единицах, как в реальных описаниях. Запросы — одно или два слова
+ * с тем же распределением. База не участвует: замеряется только индекс.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class FilmSearchBenchmark {
+    private static final String[] SYLLABLES = {"ба", "ве", "ги", "до", "жу", "зы", "ка", "ле", "мо", "ню", "ор",
+            "пя", "ре", "си", "ту", "фё", "хо", "це", "чи", "ша"};
+    private static final int VOCABULARY = 20_000;
+    private static final int QUERIES = 4096;
+
+    @Param({"1000000"})
+    int films;
+
+    private FilmSearchIndex index;
+    private String[] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        String[] words = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) {
+            words[i] = word(i);
+        }
+
+        index = new FilmSearchIndex(new InMemoryFilmStorage());
+        for (long id = 1; id <= films; id++) {
+            index.add(Film.builder()
+                    .id(id)
+                    .name(text(random, words, 1 + random.nextInt(3)))
+                    .description(text(random, words, 10 + random.nextInt(15)))
+                    .build());
+        }
+
+        queries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = text(random, words, 1 + random.nextInt(2));
+        }
+    }
+
+    @Benchmark
+    public List<Long> search() {
+        next = (next + 1) % QUERIES;
+        return index.search(queries[next], 0, 20);
+    }
+
+    /**
+     * Слово словаря с номером i: уникальная последовательность слогов
+     */
+    private static String word(int i) {
+        StringBuilder word = new StringBuilder();
+        do {
+            word.append(SYLLABLES[i % SYLLABLES.length]);
+            i /= SYLLABLES.length;
+        } while (i > 0);
+        return word.toString();
+    }
+
+    /**
+     * Случайный текст: номер слова ~ exp(U * ln N) даёт распределение, близкое к закону Ципфа
+     */
+    private static String text(Random random, String[] words, int length) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            int rank = (int) Math.exp(random.nextDouble() * Math.log(words.length)) - 1;
+            text.append(words[rank]).append(' ');
+        }
+        return text.toString();
+    }
+}
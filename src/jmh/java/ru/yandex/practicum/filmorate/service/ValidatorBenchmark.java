@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Проверки Validator для корректных фильма и пользователя, то есть с прохождением всех условий
+ * <p>
+ * Лежит в пакете service, так как проверки Validator доступны только внутри пакета.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidatorBenchmark {
+    private final Validator validator = new Validator();
+    private final Film film = Film.builder()
+            .name("Film")
+            .description("Description")
+            .releaseDate(LocalDate.of(2000, 1, 1))
+            .duration(120)
+            .mpa(new Mpa(1, null))
+            .build();
+    private final User user = new User("user@mail.ru", "user", "User", LocalDate.of(1990, 1, 1));
+
+    @Benchmark
+    public boolean validateFilm() {
+        return validator.validationFilmName(film)
+                || validator.validationFilmDescription(film)
+                || validator.validationFilmReleaseDate(film)
+                || validator.validationFilmDuration(film);
+    }
+
+    @Benchmark
+    public boolean validateUser() {
+        return validator.validationUserEmail(user)
+                || validator.validationUserLogin(user)
+                || validator.validationUserBirthday(user)
+                || validator.validationUserName(user);
+    }
+
+    @Benchmark
+    public boolean validateId() {
+        return validator.validationId(42);
+    }
+}
@@ -2,8 +2,14 @@ package ru.yandex.practicum.filmorate.controller;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.Leaderboards;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
 import javax.validation.Valid;
@@ -14,23 +20,53 @@ import java.util.List;
  */
 @Slf4j
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/films")
 public class FilmController {
+    private static final int DEFAULT_PAGE_LIMIT = 100;
+
     private final FilmService filmService;
+    private final JsonArrayWriter jsonArrayWriter;
 
     @Autowired
-    public FilmController(FilmService filmService) {
+    public FilmController(FilmService filmService, JsonArrayWriter jsonArrayWriter) {
         this.filmService = filmService;
+        this.jsonArrayWriter = jsonArrayWriter;
     }
 
     /**
-     * Возвращает список всех фильмов
+     * Возвращает список всех фильмов или, если указаны after/limit, страницу фильмов с id больше after
+     *
+     * @param after  id последнего объекта предыдущей страницы
+     * @param limit  размер страницы
+     * @param filter genreId, mpaId, yearFrom, yearTo, minDuration — отбор фильмов на стороне сервера
      */
     @GetMapping()
-    public List<Film> findAll() {
-        log.debug("Текущее количество фильмов: {}", filmService.getFilmAll().size());
+    public List<Film> findAll(@RequestParam(required = false) Long after,
+                              @RequestParam(required = false) Integer limit,
+                              FilmFilter filter) {
+        List<Film> films;
+        if (after == null && limit == null) {
+            films = filter.isEmpty() ? filmService.getFilmAll() : filmService.getFilms(filter);
+        } else if (filter.isEmpty()) {
+            films = filmService.getFilmPage(after == null ? 0 : after, limit == null ? DEFAULT_PAGE_LIMIT : limit);
+        } else {
+            films = filmService.getFilmPage(filter, after == null ? 0 : after,
+                    limit == null ? DEFAULT_PAGE_LIMIT : limit);
+        }
+        log.debug("Текущее количество фильмов: {}", films.size());
 
-        return filmService.getFilmAll();
+        return films;
+    }
+
+    /**
+     * Построчно выгружает всех фильмы в виде JSON-массива
+     */
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(jsonArrayWriter.<Film>write(filmService::streamFilmAll));
     }
 
     /**
@@ -41,9 +77,10 @@ public class FilmController {
      */
     @GetMapping("/{id}")
     public Film getFilmById(@Valid @PathVariable long id) {
-        log.debug("Поиск фильма: {}", filmService.getFilmById(id).getName());
+        Film film = filmService.getFilmById(id);
+        log.debug("Поиск фильма: {}", film.getName());
 
-        return filmService.getFilmById(id);
+        return film;
     }
 
     /**
@@ -53,7 +90,7 @@ public class FilmController {
      */
     @PostMapping()
     public Film create(@Valid @RequestBody Film film) {
-        log.trace(String.valueOf(film));
+        log.trace("Создание фильма: {}", film);
 
         return filmService.add(film);
     }
@@ -65,7 +102,7 @@ public class FilmController {
      */
     @PutMapping()
     public Film update(@Valid @RequestBody Film film) {
-        log.trace(String.valueOf(film));
+        log.trace("Обновление фильма: {}", film);
 
         return filmService.update(film);
     }
@@ -78,7 +115,7 @@ public class FilmController {
      */
     @DeleteMapping("/{id}")
     public boolean delete(@Valid @PathVariable long id) {
-        log.trace(String.valueOf(id));
+        log.trace("Удаление фильма: {}", id);
 
         return filmService.delete(id);
     }
@@ -92,8 +129,7 @@ public class FilmController {
      */
     @PutMapping("/{id}/like/{userId}")
     public boolean addFilmLike(@Valid @PathVariable long id, @PathVariable long userId) {
-        log.trace(String.valueOf(id));
-        log.trace(String.valueOf(userId));
+        log.trace("Лайк фильму {} от пользователя {}", id, userId);
 
         return filmService.addLike(id, userId);
     }
@@ -107,8 +143,7 @@ public class FilmController {
      */
     @DeleteMapping("/{id}/like/{userId}")
     public boolean deleteLike(@Valid @PathVariable long id, @PathVariable long userId) {
-        log.trace(String.valueOf(id));
-        log.trace(String.valueOf(userId));
+        log.trace("Удаление лайка фильму {} от пользователя {}", id, userId);
 
         return filmService.deleteLike(id, userId);
     }
@@ -116,21 +151,60 @@ public class FilmController {
     /**
      * Возвращает список популярных фильмов по количеству лайков
      *
-     * @param count количества возвращаемых популярных фильмов
+     * @param count  количества возвращаемых популярных фильмов
+     * @param filter genreId, mpaId, yearFrom, yearTo, minDuration — отбор фильмов на стороне сервера
      * @return список популярных фильмов
      */
     @GetMapping("/popular")
-    public List<Film> getPopularFilms(@RequestParam(required = false) Integer count) {
-        log.debug("Текущее количество Фильмов: {}", filmService.getFilmAll().size());
-        if (count == null) {
-            count = 10;
-        }
-        System.out.println(filmService.getPopularFilms(count));
-        return filmService.getPopularFilms(count);
-    }
-}
+    public List<Film> getPopularFilms(@RequestParam(defaultValue = "10") int count, FilmFilter filter) {
+        List<Film> films = filter.isEmpty()
+                ? filmService.getPopularFilms(count)
+                : filmService.getPopularFilms(filter, count);
+        log.debug("Количество популярных фильмов: {}", films.size());
 
+        return films;
+    }
 
+    /**
+     * Возвращает самые популярные фильмы каждого жанра и каждого рейтинга mpa одним ответом
+     *
+     * @param count количество фильмов в каждом рейтинге
+     */
+    @GetMapping("/popular/boards")
+    public Leaderboards getLeaderboards(@RequestParam(defaultValue = "10") int count) {
+        return filmService.getLeaderboards(count);
+    }
 
+    /**
+     * Возвращает фильмы с наибольшим приростом лайков за скользящее окно
+     *
+     * @param window окно из filmorate.trending.windows, например 1h, 24h или 7d
+     * @param count  количество фильмов
+     */
+    @GetMapping("/trending")
+    public List<Film> getTrendingFilms(@RequestParam(defaultValue = "24h") String window,
+                                       @RequestParam(defaultValue = "10") int count) {
+        List<Film> films = filmService.getTrendingFilms(window, count);
+        log.debug("Количество фильмов в тренде за {}: {}", window, films.size());
 
+        return films;
+    }
 
+    /**
+     * Ищет фильмы по словам в названии и описании
+     *
+     * @param q      строка поиска
+     * @param offset количество пропускаемых результатов
+     * @param limit  размер страницы
+     * @return фильмы, лучшие совпадения первыми
+     */
+    @GetMapping("/search")
+    public List<Film> search(@RequestParam String q,
+                             @RequestParam(defaultValue = "0") int offset,
+                             @RequestParam(defaultValue = "20") int limit) {
+        List<Film> films = filmService.searchFilms(q, offset, limit);
+        log.debug("Найдено фильмов по запросу «{}»: {}", q, films.size());
+
+        return films;
+    }
+}
@@ -31,9 +31,10 @@ public class GenresController {
      */
     @GetMapping()
     public List<Genres> findAll() {
-        log.debug("Текущее количество пользователей: {}", genresService.getGenreAll().size());
+        List<Genres> genres = genresService.getGenreAll();
+        log.debug("Текущее количество жанров: {}", genres.size());
 
-        return genresService.getGenreAll();
+        return genres;
     }
 
     /**
@@ -44,8 +45,9 @@ public class GenresController {
      */
     @GetMapping("/{id}")
     public Genres getUserById(@Valid @PathVariable int id) {
-        log.debug("Поиск genre: {}", genresService.getGenreById(id).getName());
+        Genres genre = genresService.getGenreById(id);
+        log.debug("Поиск genre: {}", genre.getName());
 
-        return genresService.getGenreById(id);
+        return genre;
     }
 }
\ No newline at end of file
@@ -0,0 +1,69 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.service.ImportService;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Контроллер массовой загрузки данных в формате NDJSON: один JSON-объект на строку
+ */
+@Slf4j
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/import")
+public class ImportController {
+    private final ImportService importService;
+
+    @Autowired
+    public ImportController(ImportService importService) {
+        this.importService = importService;
+    }
+
+    /**
+     * Загружает фильмы, по одному объекту фильма на строку
+     *
+     * @return количество загруженных строк и ошибки по номерам строк
+     */
+    @PostMapping("/films")
+    public ImportResult importFilms(InputStream body) throws IOException {
+        return importService.importFilms(body);
+    }
+
+    /**
+     * Загружает пользователей, по одному объекту пользователя на строку
+     *
+     * @return количество загруженных строк и ошибки по номерам строк
+     */
+    @PostMapping("/users")
+    public ImportResult importUsers(InputStream body) throws IOException {
+        return importService.importUsers(body);
+    }
+
+    /**
+     * Загружает лайки, по одной строке вида {"filmId": 1, "userId": 2}
+     *
+     * @return количество загруженных строк и ошибки по номерам строк
+     */
+    @PostMapping("/likes")
+    public ImportResult importLikes(InputStream body) throws IOException {
+        return importService.importLikes(body);
+    }
+
+    /**
+     * Загружает заявки в друзья, по одной строке вида {"userId": 1, "friendId": 2}
+     *
+     * @return количество загруженных строк и ошибки по номерам строк
+     */
+    @PostMapping("/friendships")
+    public ImportResult importFriendships(InputStream body) throws IOException {
+        return importService.importFriendships(body);
+    }
+}
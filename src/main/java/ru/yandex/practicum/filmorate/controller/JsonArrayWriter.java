@@ -0,0 +1,47 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Запись JSON-массива в ответ по одному элементу, без сборки всего списка в памяти
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class JsonArrayWriter {
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter elementWriter;
+
+    public JsonArrayWriter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.elementWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Возвращает тело ответа, которое пишет элементы по мере того, как их отдаёт source
+     */
+    public <T> StreamingResponseBody write(Consumer<Consumer<T>> source) {
+        return outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                source.accept(element -> {
+                    try {
+                        elementWriter.writeValue(generator, element);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+    }
+}
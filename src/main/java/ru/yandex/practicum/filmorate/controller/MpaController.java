@@ -31,9 +31,10 @@ public class MpaController {
      */
     @GetMapping()
     public List<Mpa> findAll() {
-        log.debug("Текущее количество пользователей: {}", mpaService.getMpaAll().size());
+        List<Mpa> mpaAll = mpaService.getMpaAll();
+        log.debug("Текущее количество mpa: {}", mpaAll.size());
 
-        return mpaService.getMpaAll();
+        return mpaAll;
     }
 
     /**
@@ -44,8 +45,9 @@ public class MpaController {
      */
     @GetMapping("/{id}")
     public Mpa getUserById(@Valid @PathVariable int id) {
-        log.debug("Поиск mpa: {}", mpaService.getMpaById(id).getName());
+        Mpa mpa = mpaService.getMpaById(id);
+        log.debug("Поиск mpa: {}", mpa.getName());
 
-        return mpaService.getMpaById(id);
+        return mpa;
     }
 }
\ No newline at end of file
@@ -0,0 +1,184 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.Leaderboards;
+import ru.yandex.practicum.filmorate.service.ReactiveFilmService;
+
+import javax.validation.Valid;
+
+/**
+ * Контроллер для работы с фильмами в реактивном режиме: те же адреса и JSON, что у {@link FilmController},
+ * списки отдаются по мере чтения из базы
+ */
+@Slf4j
+@RestController
+@RequestMapping("/films")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveFilmController {
+    private static final int DEFAULT_PAGE_LIMIT = 100;
+
+    private final ReactiveFilmService filmService;
+    private final ReactiveJsonArrayWriter jsonArrayWriter;
+
+    @Autowired
+    public ReactiveFilmController(ReactiveFilmService filmService, ReactiveJsonArrayWriter jsonArrayWriter) {
+        this.filmService = filmService;
+        this.jsonArrayWriter = jsonArrayWriter;
+    }
+
+    /**
+     * Возвращает все фильмы или, если указаны after/limit, страницу фильмов с id больше after.
+     * Параметр stream=true принимается для совместимости: в этом режиме ответ всегда потоковый
+     *
+     * @param after  id последнего объекта предыдущей страницы
+     * @param limit  размер страницы
+     * @param filter genreId, mpaId, yearFrom, yearTo, minDuration — отбор фильмов на стороне сервера
+     */
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Flux<DataBuffer> findAll(@RequestParam(required = false) Long after,
+                                    @RequestParam(required = false) Integer limit,
+                                    FilmFilter filter) {
+        Flux<Film> films;
+        if (after == null && limit == null) {
+            films = filter.isEmpty() ? filmService.getFilmAll() : filmService.getFilms(filter);
+        } else if (filter.isEmpty()) {
+            films = filmService.getFilmPage(after == null ? 0 : after, limit == null ? DEFAULT_PAGE_LIMIT : limit);
+        } else {
+            films = filmService.getFilmPage(filter, after == null ? 0 : after,
+                    limit == null ? DEFAULT_PAGE_LIMIT : limit);
+        }
+        return jsonArrayWriter.write(films);
+    }
+
+    /**
+     * Возвращает фильм по id
+     *
+     * @param id объекта фильма
+     * @return объект фильма
+     */
+    @GetMapping("/{id}")
+    public Mono<Film> getFilmById(@Valid @PathVariable long id) {
+        return filmService.getFilmById(id)
+                .doOnNext(film -> log.debug("Поиск фильма: {}", film.getName()));
+    }
+
+    /**
+     * Создаёт объект фильма
+     *
+     * @return возвращает объект фильма, который был создан
+     */
+    @PostMapping()
+    public Mono<Film> create(@Valid @RequestBody Film film) {
+        log.trace("Создание фильма: {}", film);
+
+        return filmService.add(film);
+    }
+
+    /**
+     * Обновляет данные фильма
+     *
+     * @return возвращает обновленный объект фильма
+     */
+    @PutMapping()
+    public Mono<Film> update(@Valid @RequestBody Film film) {
+        log.trace("Обновление фильма: {}", film);
+
+        return filmService.update(film);
+    }
+
+    /**
+     * Удаляет фильм
+     *
+     * @param id объекта фильма
+     */
+    @DeleteMapping("/{id}")
+    public Mono<Boolean> delete(@Valid @PathVariable long id) {
+        log.trace("Удаление фильма: {}", id);
+
+        return filmService.delete(id);
+    }
+
+    /**
+     * Добавляет лайк фильму
+     *
+     * @param id     объекта фильма
+     * @param userId объекта пользователя, который добавляет лайк
+     */
+    @PutMapping("/{id}/like/{userId}")
+    public Mono<Boolean> addFilmLike(@Valid @PathVariable long id, @PathVariable long userId) {
+        log.trace("Лайк фильму {} от пользователя {}", id, userId);
+
+        return filmService.addLike(id, userId);
+    }
+
+    /**
+     * Удаляет лайк у фильма
+     *
+     * @param id     объекта фильма
+     * @param userId объекта пользователя, который удаляет лайк
+     */
+    @DeleteMapping("/{id}/like/{userId}")
+    public Mono<Boolean> deleteLike(@Valid @PathVariable long id, @PathVariable long userId) {
+        log.trace("Удаление лайка фильму {} от пользователя {}", id, userId);
+
+        return filmService.deleteLike(id, userId);
+    }
+
+    /**
+     * Возвращает список популярных фильмов по количеству лайков
+     *
+     * @param count  количества возвращаемых популярных фильмов
+     * @param filter genreId, mpaId, yearFrom, yearTo, minDuration — отбор фильмов на стороне сервера
+     */
+    @GetMapping(value = "/popular", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Flux<DataBuffer> getPopularFilms(@RequestParam(defaultValue = "10") int count, FilmFilter filter) {
+        return jsonArrayWriter.write(filter.isEmpty()
+                ? filmService.getPopularFilms(count)
+                : filmService.getPopularFilms(filter, count));
+    }
+
+    /**
+     * Возвращает самые популярные фильмы каждого жанра и каждого рейтинга mpa одним ответом
+     *
+     * @param count количество фильмов в каждом рейтинге
+     */
+    @GetMapping("/popular/boards")
+    public Mono<Leaderboards> getLeaderboards(@RequestParam(defaultValue = "10") int count) {
+        return filmService.getLeaderboards(count);
+    }
+
+    /**
+     * Возвращает фильмы с наибольшим приростом лайков за скользящее окно
+     *
+     * @param window окно из filmorate.trending.windows, например 1h, 24h или 7d
+     * @param count  количество фильмов
+     */
+    @GetMapping(value = "/trending", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Flux<DataBuffer> getTrendingFilms(@RequestParam(defaultValue = "24h") String window,
+                                             @RequestParam(defaultValue = "10") int count) {
+        return jsonArrayWriter.write(filmService.getTrendingFilms(window, count));
+    }
+
+    /**
+     * Ищет фильмы по словам в названии и описании
+     *
+     * @param q      строка поиска
+     * @param offset количество пропускаемых результатов
+     * @param limit  размер страницы
+     */
+    @GetMapping(value = "/search", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Flux<DataBuffer> search(@RequestParam String q,
+                                   @RequestParam(defaultValue = "0") int offset,
+                                   @RequestParam(defaultValue = "20") int limit) {
+        return jsonArrayWriter.write(filmService.searchFilms(q, offset, limit));
+    }
+}
@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.UncheckedIOException;
+
+/**
+ * Запись JSON-массива в реактивный ответ по одному элементу
+ * <p>
+ * Элемент сериализуется, только когда сервер готов принять следующий буфер, поэтому медленный клиент
+ * замедляет чтение из базы, а не копит результат в памяти. Кодек Jackson в WebFlux перед записью
+ * application/json собрал бы весь Flux в список.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveJsonArrayWriter {
+    private static final byte START_ARRAY = '[';
+    private static final byte SEPARATOR = ',';
+    private static final byte END_ARRAY = ']';
+
+    private final ObjectMapper objectMapper;
+    private final DataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+
+    public ReactiveJsonArrayWriter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Возвращает тело ответа: открывающая скобка уходит вместе с первым элементом, поэтому ошибка
+     * до первого элемента ещё превращается в обычный ответ об ошибке
+     */
+    public <T> Flux<DataBuffer> write(Flux<T> elements) {
+        return elements.index()
+                .map(element -> buffer(element.getT1() == 0 ? START_ARRAY : SEPARATOR, element.getT2()))
+                .switchIfEmpty(Mono.fromSupplier(() -> buffer(START_ARRAY)))
+                .concatWith(Mono.fromSupplier(() -> buffer(END_ARRAY)));
+    }
+
+    private DataBuffer buffer(byte prefix, Object element) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(element);
+            return bufferFactory.allocateBuffer(json.length + 1)
+                    .write(prefix)
+                    .write(json);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private DataBuffer buffer(byte value) {
+        return bufferFactory.allocateBuffer(1).write(value);
+    }
+}
@@ -0,0 +1,163 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.ReactiveUserService;
+
+import javax.validation.Valid;
+
+/**
+ * Контроллер для работы с пользователями в реактивном режиме: те же адреса и JSON, что у {@link UserController},
+ * списки отдаются по мере чтения из базы
+ */
+@Slf4j
+@RestController
+@RequestMapping("/users")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserController {
+    private static final int DEFAULT_PAGE_LIMIT = 100;
+
+    private final ReactiveUserService userService;
+    private final ReactiveJsonArrayWriter jsonArrayWriter;
+
+    @Autowired
+    public ReactiveUserController(ReactiveUserService userService, ReactiveJsonArrayWriter jsonArrayWriter) {
+        this.userService = userService;
+        this.jsonArrayWriter = jsonArrayWriter;
+    }
+
+    /**
+     * Возвращает всех пользователей или, если указаны after/limit, страницу пользователей с id больше after.
+     * Параметр stream=true принимается для совместимости: в этом режиме ответ всегда потоковый
+     *
+     * @param after id последнего объекта предыдущей страницы
+     * @param limit размер страницы
+     */
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Flux<DataBuffer> findAll(@RequestParam(required = false) Long after,
+                                    @RequestParam(required = false) Integer limit) {
+        Flux<User> users;
+        if (after == null && limit == null) {
+            users = userService.getUserAll();
+        } else {
+            users = userService.getUserPage(after == null ? 0 : after, limit == null ? DEFAULT_PAGE_LIMIT : limit);
+        }
+        return jsonArrayWriter.write(users);
+    }
+
+    /**
+     * Возвращает пользователя по ID
+     *
+     * @param id объекта пользователя
+     * @return объект пользователя
+     */
+    @GetMapping("/{id}")
+    public Mono<User> getUserById(@Valid @PathVariable long id) {
+        return userService.getUserById(id)
+                .doOnNext(user -> log.debug("Поиск пользователя: {}", user.getName()));
+    }
+
+    /**
+     * Создаёт объект пользователя
+     *
+     * @return возвращает объект пользователя, который был создан
+     */
+    @PostMapping()
+    public Mono<User> create(@Valid @RequestBody User user) {
+        log.trace("Создание пользователя: {}", user);
+
+        return userService.add(user);
+    }
+
+    /**
+     * Обновляет данные пользователя
+     *
+     * @return возвращает обновленный объект пользователя
+     */
+    @PutMapping()
+    public Mono<User> update(@Valid @RequestBody User user) {
+        log.trace("Обновление пользователя: {}", user);
+
+        return userService.update(user);
+    }
+
+    /**
+     * Удаляет пользователя
+     *
+     * @param id пользователя, которого удаляют
+     */
+    @DeleteMapping("/{id}")
+    public Mono<Boolean> deleteUser(@Valid @PathVariable long id) {
+        log.trace("Удаление пользователя: {}", id);
+
+        return userService.delete(id);
+    }
+
+    /**
+     * Добавляет пользователя в друзья
+     *
+     * @param id       объекта пользователя, который добавляет в друзья
+     * @param friendId объекта пользователя, которого добавляют в друзья
+     * @return friendId объекта пользователя, которого добавляют в друзья
+     */
+    @PutMapping("/{id}/friends/{friendId}")
+    public Mono<Long> updateFriend(@Valid @PathVariable long id, @PathVariable long friendId) {
+        log.trace("Пользователь {} добавляет в друзья {}", id, friendId);
+
+        return userService.addFriend(id, friendId);
+    }
+
+    /**
+     * Удаляет пользователя из списка друзей
+     *
+     * @param id       объекта пользователя, который удаляет из друзей
+     * @param friendId объекта пользователя, которого удаляют из друзья
+     * @return friendId объекта пользователя
+     */
+    @DeleteMapping("/{id}/friends/{friendId}")
+    public Mono<Long> deleteFriend(@Valid @PathVariable long id, @PathVariable long friendId) {
+        log.trace("Пользователь {} удаляет из друзей {}", id, friendId);
+
+        return userService.deleteFriend(id, friendId);
+    }
+
+    /**
+     * Возвращает список друзей пользователя
+     *
+     * @param id объекта пользователя
+     */
+    @GetMapping(value = "/{id}/friends", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Flux<DataBuffer> findAllFriends(@PathVariable long id) {
+        return jsonArrayWriter.write(userService.getAllFriends(id));
+    }
+
+    /**
+     * Возвращает список общих друзей двух пользователей
+     *
+     * @param id      объекта первого пользователя
+     * @param otherId объекта второго пользователя
+     */
+    @GetMapping(value = "/{id}/friends/common/{otherId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Flux<DataBuffer> findCommonFriends(@PathVariable long id, @PathVariable long otherId) {
+        return jsonArrayWriter.write(userService.getCommonFriends(id, otherId));
+    }
+
+    /**
+     * Возвращает ленту пользователя: фильмы, которые лайкнули его друзья, по убыванию числа таких друзей
+     *
+     * @param id    объекта пользователя
+     * @param count количество фильмов
+     */
+    @GetMapping(value = "/{id}/feed", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Flux<DataBuffer> getFeed(@PathVariable long id, @RequestParam(defaultValue = "10") int count) {
+        return jsonArrayWriter.write(userService.getFeed(id, count));
+    }
+}
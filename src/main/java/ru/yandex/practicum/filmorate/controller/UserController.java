@@ -2,7 +2,12 @@ package ru.yandex.practicum.filmorate.controller;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.UserService;
 
@@ -14,23 +19,48 @@ import java.util.List;
  */
 @Slf4j
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/users")
 public class UserController {
+    private static final int DEFAULT_PAGE_LIMIT = 100;
+
     private final UserService userService;
+    private final JsonArrayWriter jsonArrayWriter;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, JsonArrayWriter jsonArrayWriter) {
         this.userService = userService;
+        this.jsonArrayWriter = jsonArrayWriter;
     }
 
     /**
-     * Возвращает список всех пользователей
+     * Возвращает список всех пользователей или, если указаны after/limit, страницу пользователей с id больше after
+     *
+     * @param after id последнего объекта предыдущей страницы
+     * @param limit размер страницы
      */
     @GetMapping()
-    public List<User> findAll() {
-        log.debug("Текущее количество пользователей: {}", userService.getUserAll().size());
+    public List<User> findAll(@RequestParam(required = false) Long after,
+                              @RequestParam(required = false) Integer limit) {
+        List<User> users;
+        if (after == null && limit == null) {
+            users = userService.getUserAll();
+        } else {
+            users = userService.getUserPage(after == null ? 0 : after, limit == null ? DEFAULT_PAGE_LIMIT : limit);
+        }
+        log.debug("Текущее количество пользователей: {}", users.size());
+
+        return users;
+    }
 
-        return userService.getUserAll();
+    /**
+     * Построчно выгружает всех пользователей в виде JSON-массива
+     */
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(jsonArrayWriter.<User>write(userService::streamUserAll));
     }
 
     /**
@@ -41,9 +71,10 @@ public class UserController {
      */
     @GetMapping("/{id}")
     public User getUserById(@Valid @PathVariable long id) {
-        log.debug("Поиск пользователя: {}", userService.getUserById(id).getName());
+        User user = userService.getUserById(id);
+        log.debug("Поиск пользователя: {}", user.getName());
 
-        return userService.getUserById(id);
+        return user;
     }
 
     /**
@@ -53,7 +84,7 @@ public class UserController {
      */
     @PostMapping()
     public User create(@Valid @RequestBody User user) {
-        log.trace(String.valueOf(user));
+        log.trace("Создание пользователя: {}", user);
 
         return userService.add(user);
     }
@@ -65,7 +96,7 @@ public class UserController {
      */
     @PutMapping()
     public User update(@Valid @RequestBody User user) {
-        log.trace(String.valueOf(user));
+        log.trace("Обновление пользователя: {}", user);
 
         return userService.update(user);
     }
@@ -78,7 +109,7 @@ public class UserController {
      */
     @DeleteMapping("/{id}")
     public boolean deleteFriend(@Valid @PathVariable long id) {
-        log.trace(String.valueOf(id));
+        log.trace("Удаление пользователя: {}", id);
 
         return userService.delete(id);
     }
@@ -92,8 +123,7 @@ public class UserController {
      */
     @PutMapping("/{id}/friends/{friendId}")
     public long updateFriend(@Valid @PathVariable long id, @PathVariable long friendId) {
-        log.trace(String.valueOf(id));
-        log.trace(String.valueOf(friendId));
+        log.trace("Пользователь {} добавляет в друзья {}", id, friendId);
 
         userService.addFriend(id, friendId);
 
@@ -111,8 +141,7 @@ public class UserController {
      */
     @DeleteMapping("/{id}/friends/{friendId}")
     public long deleteFriend(@Valid @PathVariable long id, @PathVariable long friendId) {
-        log.trace(String.valueOf(id));
-        log.trace(String.valueOf(friendId));
+        log.trace("Пользователь {} удаляет из друзей {}", id, friendId);
 
         userService.deleteFriend(id, friendId);
 
@@ -129,9 +158,10 @@ public class UserController {
      */
     @GetMapping("/{id}/friends")
     public List<User> findAllFriends(@PathVariable long id) {
-        log.debug("Текущее количество друзей: {}", userService.getAllFriends(id).size());
+        List<User> friends = userService.getAllFriends(id);
+        log.debug("Текущее количество друзей: {}", friends.size());
 
-        return userService.getAllFriends(id);
+        return friends;
     }
 
     /**
@@ -143,8 +173,24 @@ public class UserController {
      */
     @GetMapping("/{id}/friends/common/{otherId}")
     public List<User> findCommonFriends(@PathVariable long id, @PathVariable long otherId) {
-        log.debug("Текущее количество общих друзей: {}", userService.getCommonFriends(id, otherId));
+        List<User> commonFriends = userService.getCommonFriends(id, otherId);
+        log.debug("Текущее количество общих друзей: {}", commonFriends.size());
+
+        return commonFriends;
+    }
+
+    /**
+     * Возвращает ленту пользователя: фильмы, которые лайкнули его друзья, по убыванию числа таких друзей
+     *
+     * @param id    объекта пользователя
+     * @param count количество фильмов
+     * @return фильмы, которые пользователь ещё не лайкнул
+     */
+    @GetMapping("/{id}/feed")
+    public List<Film> getFeed(@PathVariable long id, @RequestParam(defaultValue = "10") int count) {
+        List<Film> films = userService.getFeed(id, count);
+        log.debug("Количество фильмов в ленте: {}", films.size());
 
-        return userService.getCommonFriends(id, otherId);
+        return films;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,22 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Регистрация счётчика SQL-запросов на каждый HTTP-запрос
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequiredArgsConstructor
+public class MetricsConfig implements WebMvcConfigurer {
+    private final StatementsPerRequestInterceptor statementsPerRequestInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(statementsPerRequestInterceptor);
+    }
+}
@@ -0,0 +1,81 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Set;
+
+/**
+ * Подсчёт SQL-запросов, выполненных потоком между {@link #start()} и {@link #stop()}
+ * <p>
+ * Оборачивает DataSource и считает подготовленные statement'ы, то есть обращения к базе данных.
+ * Пока счётчик потока не запущен, соединения только передают вызовы дальше.
+ * <p>
+ * Обёртка передаёт unwrap и isWrapperFor исходному DataSource, поэтому метрики пула Hikari
+ * находят пул под ней и подключаются до его запуска.
+ */
+@Component
+public class RequestStatementCounter implements BeanPostProcessor {
+    private static final Set<String> STATEMENT_METHODS = Set.of("prepareStatement", "prepareCall",
+            "createStatement");
+    private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource)) {
+            return bean;
+        }
+        return new DelegatingDataSource((DataSource) bean) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return countingConnection(super.getConnection());
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return countingConnection(super.getConnection(username, password));
+            }
+        };
+    }
+
+    /**
+     * Запуск счётчика для текущего потока
+     */
+    public void start() {
+        COUNT.set(new int[1]);
+    }
+
+    /**
+     * Остановка счётчика текущего потока
+     *
+     * @return количество запросов с момента запуска или -1, если счётчик не был запущен
+     */
+    public int stop() {
+        int[] count = COUNT.get();
+        COUNT.remove();
+        return count == null ? -1 : count[0];
+    }
+
+    private Connection countingConnection(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    if (STATEMENT_METHODS.contains(method.getName())) {
+                        int[] count = COUNT.get();
+                        if (count != null) {
+                            count[0]++;
+                        }
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
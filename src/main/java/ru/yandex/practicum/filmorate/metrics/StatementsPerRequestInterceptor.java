@@ -0,0 +1,65 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Распределение filmorate.jdbc.statements: сколько SQL-запросов выполнил один HTTP-запрос
+ * <p>
+ * Теги method и uri совпадают с тегами http.server.requests, поэтому рост числа запросов
+ * на эндпоинт (например, N+1 при чтении фильмов) виден рядом с его временем ответа.
+ * Для потоковых ответов учитываются только запросы, выполненные до начала асинхронной записи.
+ */
+@Component
+@RequiredArgsConstructor
+public class StatementsPerRequestInterceptor implements AsyncHandlerInterceptor {
+    static final String SUMMARY_NAME = "filmorate.jdbc.statements";
+
+    private final RequestStatementCounter statementCounter;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() != DispatcherType.ASYNC) {
+            statementCounter.start();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        record(request, response);
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        record(request, response);
+    }
+
+    private void record(HttpServletRequest request, HttpServletResponse response) {
+        int statements = statementCounter.stop();
+        if (statements < 0) {
+            return;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        DistributionSummary.builder(SUMMARY_NAME)
+                .description("Количество SQL-запросов на один HTTP-запрос")
+                .baseUnit("statements")
+                .tag("method", request.getMethod())
+                .tag("uri", pattern == null ? "UNKNOWN" : pattern.toString())
+                .tag("status", String.valueOf(response.getStatus()))
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry)
+                .record(statements);
+    }
+}
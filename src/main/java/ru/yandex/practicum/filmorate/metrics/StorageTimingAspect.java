@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Таймер filmorate.storage на каждый публичный метод хранилищ, работающих с базой данных
+ * <p>
+ * Таймеры различаются тегами class и method, публикуют перцентили 0.5, 0.95, 0.99 и гистограмму,
+ * по которой перцентили можно агрегировать между экземплярами приложения.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class StorageTimingAspect {
+    static final String TIMER_NAME = "filmorate.storage";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Method, Timer> timers = new ConcurrentHashMap<>();
+
+    @Around("execution(public * ru.yandex.practicum.filmorate.storage.*DbStorage.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Timer timer = timers.computeIfAbsent(method, this::timer);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            sample.stop(timer);
+        }
+    }
+
+    private Timer timer(Method method) {
+        return Timer.builder(TIMER_NAME)
+                .description("Время выполнения метода хранилища")
+                .tag("class", method.getDeclaringClass().getSimpleName())
+                .tag("method", method.getName())
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
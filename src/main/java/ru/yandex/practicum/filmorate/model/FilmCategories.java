@@ -0,0 +1,27 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Рейтинг mpa и жанры фильма — всё, что нужно для рейтингов популярности по категориям
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FilmCategories {
+    private int mpaId;
+    private List<Integer> genreIds = new ArrayList<>();
+
+    public static FilmCategories of(Film film) {
+        List<Integer> genreIds = new ArrayList<>();
+        if (film.getGenres() != null) {
+            film.getGenres().forEach(genre -> genreIds.add(genre.getId()));
+        }
+        return new FilmCategories(film.getMpa() == null ? 0 : film.getMpa().getId(), genreIds);
+    }
+}
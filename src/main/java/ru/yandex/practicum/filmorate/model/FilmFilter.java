@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Условия отбора фильмов для /films и /films/popular, незаданные поля не ограничивают выборку
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FilmFilter {
+    private Integer genreId;
+    private Integer mpaId;
+    private Integer yearFrom;
+    private Integer yearTo;
+    private Integer minDuration;
+
+    public boolean isEmpty() {
+        return genreId == null && mpaId == null && yearFrom == null && yearTo == null && minDuration == null;
+    }
+}
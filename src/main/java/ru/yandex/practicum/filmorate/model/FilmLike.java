@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Объект лайка фильма пользователем
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FilmLike {
+    private long filmId;
+    private long userId;
+}
@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Объект заявки в друзья: пользователь userId добавляет в друзья пользователя friendId
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Friendship {
+    private long userId;
+    private long friendId;
+}
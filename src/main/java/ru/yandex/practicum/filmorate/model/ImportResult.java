@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Результат массовой загрузки: количество строк и ошибки по номерам строк
+ */
+@Data
+public class ImportResult {
+    private static final int MAX_ERRORS = 1000;
+
+    private long imported;
+    private long failed;
+    private List<LineError> errors = new ArrayList<>();
+
+    public void addImported(long count) {
+        imported += count;
+    }
+
+    /**
+     * Учитывает ошибку строки; подробности сохраняются только для первых MAX_ERRORS ошибок
+     */
+    public void addError(long line, String message) {
+        failed++;
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(new LineError(line, message));
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class LineError {
+        private long line;
+        private String message;
+    }
+}
@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Самые популярные фильмы каждого жанра и каждого рейтинга mpa
+ */
+@Data
+public class Leaderboards {
+    private List<Leaderboard> genres = new ArrayList<>();
+    private List<Leaderboard> mpa = new ArrayList<>();
+
+    @Data
+    @AllArgsConstructor
+    public static class Leaderboard {
+        private int id;
+        private String name;
+        private List<Film> films;
+    }
+}
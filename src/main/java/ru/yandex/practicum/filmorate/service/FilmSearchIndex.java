@@ -0,0 +1,357 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Обратный индекс по названию и описанию фильмов для поиска /films/search
+ * <p>
+ * Текст разбивается на слова из букв и цифр, слова приводятся к нижнему регистру по русской локали,
+ * «ё» заменяется на «е». Для каждого слова хранится отсортированный по id список фильмов с весом:
+ * вхождение в название весит {@value #NAME_WEIGHT}, в описание — 1.
+ * <p>
+ * Поиск находит фильмы, содержащие все слова запроса: проход идёт по самому короткому списку, в остальных
+ * фильм ищется от предыдущей позиции удваивающимся шагом. Оценка — сумма весов, умноженных на idf слова,
+ * то есть редкие слова важнее частых. Для каждого блока из 64 позиций списка хранится наибольший вес:
+ * блок самого короткого списка, фильмы которого даже с наибольшими весами пересекающихся блоков остальных
+ * списков не попадут в первые offset + limit, пропускается целиком.
+ * <p>
+ * Индекс строится из таблицы фильмов при старте и обновляется при добавлении, изменении и удалении фильма.
+ */
+@Slf4j
+@Component
+public class FilmSearchIndex {
+    static final int NAME_WEIGHT = 3;
+    private static final int MAX_WEIGHT = Byte.MAX_VALUE;
+    private static final Locale RUSSIAN = new Locale("ru");
+    private static final Comparator<Hit> WORST_FIRST = Comparator.comparingDouble(Hit::getScore)
+            .thenComparing(Comparator.comparingLong(Hit::getFilmId).reversed());
+
+    private final FilmStorage filmStorage;
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<Long, Postings[]> postingsByFilm = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public FilmSearchIndex(@Qualifier("filmDbStorage") FilmStorage filmStorage) {
+        this.filmStorage = filmStorage;
+    }
+
+    /**
+     * Построение индекса по всем фильмам хранилища
+     */
+    @PostConstruct
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            postingsByFilm.clear();
+            filmStorage.streamFilmAll(this::put);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Поисковый индекс построен: {} фильмов, {} слов", postingsByFilm.size(), postings.size());
+    }
+
+    /**
+     * Добавление фильма или замена его текста в индексе
+     */
+    public void add(Film film) {
+        lock.writeLock().lock();
+        try {
+            remove(film.getId());
+            put(film);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void delete(long filmId) {
+        lock.writeLock().lock();
+        try {
+            remove(filmId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Поиск фильмов, содержащих все слова запроса
+     *
+     * @return id фильмов по убыванию оценки, при равной оценке — по возрастанию id
+     */
+    public List<Long> search(String query, int offset, int limit) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        if (terms.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        lock.readLock().lock();
+        try {
+            Postings[] lists = new Postings[terms.size()];
+            int i = 0;
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                if (list == null) {
+                    return new ArrayList<>();
+                }
+                lists[i++] = list;
+            }
+            Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+            return page(top(lists, (int) Math.min((long) offset + limit, lists[0].size)), offset);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Разбиение текста на слова в нижнем регистре
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean letter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(RUSSIAN).replace('ё', 'е'));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private List<Hit> top(Postings[] lists, int count) {
+        int total = postingsByFilm.size();
+        double[] idf = new double[lists.length];
+        for (int i = 0; i < lists.length; i++) {
+            idf[i] = Math.log(1 + (double) total / lists[i].size);
+        }
+
+        PriorityQueue<Hit> hits = new PriorityQueue<>(count + 1, WORST_FIRST);
+        int[] cursors = new int[lists.length];
+        int[] blocks = new int[lists.length];
+        Postings shortest = lists[0];
+
+        candidates:
+        for (int position = 0; position < shortest.size; position++) {
+            if (position % Postings.BLOCK == 0 && hits.size() == count
+                    && blockBound(lists, idf, blocks, position) <= hits.peek().getScore()) {
+                position += Postings.BLOCK - 1;
+                continue;
+            }
+            long filmId = shortest.filmIds[position];
+            double score = shortest.weights[position] * idf[0];
+            for (int i = 1; i < lists.length; i++) {
+                int found = seek(lists[i], cursors[i], filmId);
+                if (found < 0) {
+                    cursors[i] = -found - 1;
+                    if (cursors[i] == lists[i].size) {
+                        break candidates;
+                    }
+                    continue candidates;
+                }
+                cursors[i] = found + 1;
+                score += lists[i].weights[found] * idf[i];
+            }
+            if (hits.size() < count) {
+                hits.add(new Hit(filmId, score));
+            } else if (score > hits.peek().getScore()) {
+                hits.poll();
+                hits.add(new Hit(filmId, score));
+            }
+        }
+
+        List<Hit> sorted = new ArrayList<>(hits);
+        sorted.sort(WORST_FIRST.reversed());
+        return sorted;
+    }
+
+    /**
+     * Наибольшая возможная оценка фильмов из блока самого короткого списка, начинающегося с позиции position:
+     * в остальных списках берутся наибольшие веса блоков, пересекающихся с ним по диапазону id
+     */
+    private static double blockBound(Postings[] lists, double[] idf, int[] blocks, int position) {
+        Postings shortest = lists[0];
+        long from = shortest.filmIds[position];
+        long to = shortest.filmIds[Math.min(position + Postings.BLOCK, shortest.size) - 1];
+        double bound = shortest.blockMax[position / Postings.BLOCK] * idf[0];
+        for (int i = 1; i < lists.length; i++) {
+            Postings list = lists[i];
+            while (blocks[i] < list.blocks() && list.lastId(blocks[i]) < from) {
+                blocks[i]++;
+            }
+            int max = 0;
+            for (int block = blocks[i]; block < list.blocks() && list.filmIds[block * Postings.BLOCK] <= to; block++) {
+                max = Math.max(max, list.blockMax[block]);
+            }
+            bound += max * idf[i];
+        }
+        return bound;
+    }
+
+    /**
+     * Поиск фильма в списке начиная с позиции from: шаг удваивается, пока не перешагнёт id, затем двоичный поиск
+     *
+     * @return позиция фильма или -(точка вставки) - 1, как у {@link Arrays#binarySearch(long[], long)}
+     */
+    private static int seek(Postings list, int from, long filmId) {
+        int step = 1;
+        int to = from;
+        while (to < list.size && list.filmIds[to] < filmId) {
+            from = to + 1;
+            to += step;
+            step <<= 1;
+        }
+        return Arrays.binarySearch(list.filmIds, from, Math.min(to + 1, list.size), filmId);
+    }
+
+    private List<Long> page(List<Hit> hits, int offset) {
+        List<Long> filmIds = new ArrayList<>();
+        for (int i = offset; i < hits.size(); i++) {
+            filmIds.add(hits.get(i).getFilmId());
+        }
+        return filmIds;
+    }
+
+    private void put(Film film) {
+        Map<String, Integer> weights = new HashMap<>();
+        for (String token : tokenize(film.getName())) {
+            weights.merge(token, NAME_WEIGHT, Integer::sum);
+        }
+        for (String token : tokenize(film.getDescription())) {
+            weights.merge(token, 1, Integer::sum);
+        }
+
+        Postings[] lists = new Postings[weights.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> token : weights.entrySet()) {
+            Postings list = postings.computeIfAbsent(token.getKey(), Postings::new);
+            list.put(film.getId(), (byte) Math.min(MAX_WEIGHT, token.getValue()));
+            lists[i++] = list;
+        }
+        postingsByFilm.put(film.getId(), lists);
+    }
+
+    private void remove(long filmId) {
+        Postings[] lists = postingsByFilm.remove(filmId);
+        if (lists == null) {
+            return;
+        }
+        for (Postings list : lists) {
+            list.remove(filmId);
+            if (list.size == 0) {
+                postings.remove(list.term);
+            }
+        }
+    }
+
+    /**
+     * Фильмы, в тексте которых есть слово: id по возрастанию и вес слова в каждом фильме
+     */
+    private static class Postings {
+        static final int BLOCK = 64;
+
+        final String term;
+        long[] filmIds = new long[2];
+        byte[] weights = new byte[2];
+        int size;
+        /**
+         * Наибольший вес в каждом блоке из {@value #BLOCK} позиций
+         */
+        byte[] blockMax = new byte[1];
+
+        Postings(String term) {
+            this.term = term;
+        }
+
+        void put(long filmId, byte weight) {
+            int position = size > 0 && filmIds[size - 1] < filmId
+                    ? -size - 1
+                    : Arrays.binarySearch(filmIds, 0, size, filmId);
+            if (position >= 0) {
+                weights[position] = weight;
+                updateBlocks(position);
+                return;
+            }
+            position = -position - 1;
+            if (size == filmIds.length) {
+                filmIds = Arrays.copyOf(filmIds, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            System.arraycopy(filmIds, position, filmIds, position + 1, size - position);
+            System.arraycopy(weights, position, weights, position + 1, size - position);
+            filmIds[position] = filmId;
+            weights[position] = weight;
+            size++;
+            if (position == size - 1 && position % BLOCK != 0) {
+                blockMax[position / BLOCK] = (byte) Math.max(blockMax[position / BLOCK], weight);
+            } else {
+                updateBlocks(position);
+            }
+        }
+
+        void remove(long filmId) {
+            int position = Arrays.binarySearch(filmIds, 0, size, filmId);
+            if (position < 0) {
+                return;
+            }
+            System.arraycopy(filmIds, position + 1, filmIds, position, size - position - 1);
+            System.arraycopy(weights, position + 1, weights, position, size - position - 1);
+            size--;
+            updateBlocks(position);
+        }
+
+        int blocks() {
+            return (size + BLOCK - 1) / BLOCK;
+        }
+
+        long lastId(int block) {
+            return filmIds[Math.min(size, (block + 1) * BLOCK) - 1];
+        }
+
+        /**
+         * Пересчёт наибольших весов блоков, в которые сдвинулись позиции начиная с from
+         */
+        private void updateBlocks(int from) {
+            int blocks = blocks();
+            if (blockMax.length < blocks) {
+                blockMax = Arrays.copyOf(blockMax, Math.max(blocks, blockMax.length * 2));
+            }
+            for (int block = from / BLOCK; block < blocks; block++) {
+                byte max = 0;
+                for (int i = block * BLOCK; i < Math.min(size, (block + 1) * BLOCK); i++) {
+                    max = (byte) Math.max(max, weights[i]);
+                }
+                blockMax[block] = max;
+            }
+        }
+    }
+
+    @Value
+    private static class Hit {
+        long filmId;
+        double score;
+    }
+}
@@ -1,15 +1,30 @@
 package ru.yandex.practicum.filmorate.service;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmCategories;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.Genres;
+import ru.yandex.practicum.filmorate.model.Leaderboards;
+import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Класс, ответственный за операции с фильмами
@@ -19,11 +34,23 @@ import java.util.List;
 public class FilmService {
     private final FilmStorage filmStorage;
     private final Validator validator;
+    private final PopularityIndex popularityIndex;
+    private final FilmSearchIndex filmSearchIndex;
+    private final TrendingIndex trendingIndex;
+    private final ReferenceDataCache referenceDataCache;
+    private final LikeWriteBehind likeWriteBehind;
 
     @Autowired
-    public FilmService(@Qualifier("filmDbStorage") FilmStorage filmStorage, Validator validator) {
+    public FilmService(@Qualifier("filmDbStorage") FilmStorage filmStorage, Validator validator,
+                       PopularityIndex popularityIndex, FilmSearchIndex filmSearchIndex, TrendingIndex trendingIndex,
+                       ReferenceDataCache referenceDataCache, ObjectProvider<LikeWriteBehind> likeWriteBehind) {
         this.filmStorage = filmStorage;
         this.validator = validator;
+        this.popularityIndex = popularityIndex;
+        this.filmSearchIndex = filmSearchIndex;
+        this.trendingIndex = trendingIndex;
+        this.referenceDataCache = referenceDataCache;
+        this.likeWriteBehind = likeWriteBehind.getIfAvailable();
     }
 
     /**
@@ -33,6 +60,52 @@ public class FilmService {
         return filmStorage.getFilmAll();
     }
 
+    /**
+     * Возвращает страницу фильмов с id больше afterId
+     */
+    public List<Film> getFilmPage(long afterId, int limit) {
+        try {
+            if (validator.validationPage(afterId, limit)) {
+                throw new ValidationException("Курсор страницы не может быть меньше 0, размер страницы — от 1 до 1000");
+            }
+        } catch (ValidationException e) {
+            log.warn(e.getMessage());
+            throw e;
+        }
+        return filmStorage.getFilmPage(afterId, limit);
+    }
+
+    /**
+     * Возвращает все фильмы, подходящие под фильтр
+     */
+    public List<Film> getFilms(FilmFilter filter) {
+        validationFilter(filter);
+        return filmStorage.getFilmPage(filter, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Возвращает страницу фильмов с id больше afterId, подходящих под фильтр
+     */
+    public List<Film> getFilmPage(FilmFilter filter, long afterId, int limit) {
+        try {
+            if (validator.validationPage(afterId, limit)) {
+                throw new ValidationException("Курсор страницы не может быть меньше 0, размер страницы — от 1 до 1000");
+            }
+        } catch (ValidationException e) {
+            log.warn(e.getMessage());
+            throw e;
+        }
+        validationFilter(filter);
+        return filmStorage.getFilmPage(filter, afterId, limit);
+    }
+
+    /**
+     * Передаёт все фильмы по одному по мере чтения из хранилища
+     */
+    public void streamFilmAll(Consumer<Film> action) {
+        filmStorage.streamFilmAll(action);
+    }
+
     /**
      * Возвращает фильм по id
      */
@@ -54,7 +127,11 @@ public class FilmService {
     public Film add(Film film) {
         validationFieldsFilm(film);
 
-        return filmStorage.add(film);
+        Film added = filmStorage.add(film);
+        popularityIndex.addFilm(added.getId(), FilmCategories.of(added));
+        filmSearchIndex.add(added);
+
+        return added;
     }
 
     /**
@@ -67,7 +144,11 @@ public class FilmService {
             }
             validationFieldsFilm(film);
 
-            return filmStorage.update(film);
+            Film updated = filmStorage.update(film);
+            popularityIndex.updateCategories(updated.getId(), FilmCategories.of(updated));
+            filmSearchIndex.add(updated);
+
+            return updated;
         } catch (NotFoundException e) {
             log.warn(e.getMessage());
             throw e;
@@ -78,18 +159,30 @@ public class FilmService {
      * Удаление фильма
      */
     public boolean delete(long id) {
-        return filmStorage.delete(getFilmById(id));
+        boolean deleted = filmStorage.delete(getFilmById(id));
+        if (deleted) {
+            popularityIndex.deleteFilm(id);
+            filmSearchIndex.delete(id);
+        }
+        return deleted;
     }
 
     /**
-     * Добавление лайка для определенного фильма
+     * Добавление лайка для определенного фильма, в режиме отложенной записи — постановка лайка в очередь
      */
-    public boolean addLike(long userId, long filmId) {
+    public boolean addLike(long filmId, long userId) {
         try {
-            if (validator.validationId(userId) || validator.validationId(filmId)) {
+            if (validator.validationId(filmId) || validator.validationId(userId)) {
                 throw new NotFoundException("id пользователя или фильма должен быть больше 0");
             }
-            return filmStorage.addLike(userId, filmId);
+            if (likeWriteBehind != null) {
+                return likeWriteBehind.addLike(filmId, userId);
+            }
+            boolean added = filmStorage.addLike(filmId, userId);
+            if (added) {
+                popularityIndex.addLike(filmId);
+            }
+            return added;
         } catch (NotFoundException e) {
             log.warn(e.getMessage());
             throw e;
@@ -97,14 +190,21 @@ public class FilmService {
     }
 
     /**
-     * Удаление лайка для определенного фильма
+     * Удаление лайка для определенного фильма, в режиме отложенной записи — постановка отмены в очередь
      */
     public boolean deleteLike(long filmId, long userId) {
         try {
             if (validator.validationId(filmId) || validator.validationId(userId)) {
                 throw new NotFoundException("id пользователя или фильма должен быть больше 0");
             }
-            return filmStorage.deleteLike(filmId, userId);
+            if (likeWriteBehind != null) {
+                return likeWriteBehind.deleteLike(filmId, userId);
+            }
+            boolean deleted = filmStorage.deleteLike(filmId, userId);
+            if (deleted) {
+                popularityIndex.deleteLike(filmId);
+            }
+            return deleted;
         } catch (NotFoundException e) {
             log.warn(e.getMessage());
             throw e;
@@ -112,10 +212,127 @@ public class FilmService {
     }
 
     /**
-     * Формирование списка популярных фильмов на базе количества лайков
+     * Формирование списка популярных фильмов на базе количества лайков из рейтинга в памяти
      */
-    public List<Film> getPopularFilms(Integer count) {
-        return filmStorage.getPopularFilms(count);
+    public List<Film> getPopularFilms(int count) {
+        validationCount(count);
+        return filmStorage.getFilmsByIds(popularityIndex.getTop(count));
+    }
+
+    /**
+     * Самые популярные фильмы каждого жанра и каждого рейтинга mpa из рейтингов в памяти,
+     * фильмы всех рейтингов читаются одним запросом
+     */
+    public Leaderboards getLeaderboards(int count) {
+        validationCount(count);
+        Map<Integer, List<Long>> byGenre = popularityIndex.getTopByGenre(count);
+        Map<Integer, List<Long>> byMpa = popularityIndex.getTopByMpa(count);
+        Set<Long> filmIds = new LinkedHashSet<>();
+        byGenre.values().forEach(filmIds::addAll);
+        byMpa.values().forEach(filmIds::addAll);
+        Map<Long, Film> filmsById = filmStorage.getFilmsByIds(new ArrayList<>(filmIds)).stream()
+                .collect(Collectors.toMap(Film::getId, Function.identity()));
+
+        Leaderboards leaderboards = new Leaderboards();
+        for (Genres genre : referenceDataCache.getGenreAll()) {
+            leaderboards.getGenres().add(new Leaderboards.Leaderboard(genre.getId(), genre.getName(),
+                    films(byGenre.get(genre.getId()), filmsById)));
+        }
+        for (Mpa mpa : referenceDataCache.getMpaAll()) {
+            leaderboards.getMpa().add(new Leaderboards.Leaderboard(mpa.getId(), mpa.getName(),
+                    films(byMpa.get(mpa.getId()), filmsById)));
+        }
+        return leaderboards;
+    }
+
+    /**
+     * Популярные фильмы, подходящие под фильтр, одним запросом к хранилищу
+     */
+    public List<Film> getPopularFilms(FilmFilter filter, int count) {
+        validationCount(count);
+        validationFilter(filter);
+        return filmStorage.getPopularFilms(filter, count);
+    }
+
+    /**
+     * Фильмы с наибольшим приростом лайков за окно из рейтинга трендов в памяти
+     */
+    public List<Film> getTrendingFilms(String window, int count) {
+        validationTrending(window, count);
+        return filmStorage.getFilmsByIds(trendingIndex.getTop(window, count));
+    }
+
+    /**
+     * Поиск фильмов по словам в названии и описании, лучшие совпадения первыми
+     */
+    public List<Film> searchFilms(String query, int offset, int limit) {
+        try {
+            if (query == null || query.isBlank()) {
+                throw new ValidationException("Необходимо указать строку поиска");
+            }
+            if (validator.validationPage(offset, limit)) {
+                throw new ValidationException("Смещение не может быть меньше 0, размер страницы — от 1 до 1000");
+            }
+        } catch (ValidationException e) {
+            log.warn(e.getMessage());
+            throw e;
+        }
+        return filmStorage.getFilmsByIds(filmSearchIndex.search(query, offset, limit));
+    }
+
+    private static List<Film> films(List<Long> filmIds, Map<Long, Film> filmsById) {
+        if (filmIds == null) {
+            return new ArrayList<>();
+        }
+        return filmIds.stream()
+                .map(filmsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Валидация фильтра фильмов
+     */
+    public void validationFilter(FilmFilter filter) {
+        try {
+            if (validator.validationFilmFilter(filter)) {
+                throw new ValidationException("id жанра и рейтинга должны быть больше 0, yearFrom и yearTo — "
+                        + "от 1895 до 9999, yearFrom — не больше yearTo, minDuration — не меньше 0");
+            }
+        } catch (ValidationException e) {
+            log.warn(e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Валидация окна и количества фильмов рейтинга трендов
+     */
+    public void validationTrending(String window, int count) {
+        try {
+            if (!trendingIndex.getWindows().contains(window)) {
+                throw new ValidationException("Окно должно быть одним из: "
+                        + String.join(", ", trendingIndex.getWindows()));
+            }
+        } catch (ValidationException e) {
+            log.warn(e.getMessage());
+            throw e;
+        }
+        validationCount(count);
+    }
+
+    /**
+     * Валидация количества фильмов в рейтинге: от 1 до 1000
+     */
+    public void validationCount(int count) {
+        try {
+            if (validator.validationPage(0, count)) {
+                throw new ValidationException("Количество фильмов должно быть от 1 до 1000");
+            }
+        } catch (ValidationException e) {
+            log.warn(e.getMessage());
+            throw e;
+        }
     }
 
     /**
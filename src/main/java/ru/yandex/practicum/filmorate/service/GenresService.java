@@ -18,7 +18,7 @@ public class GenresService {
     private final GenresStorage genresStorage;
     private final Validator validator;
 
-    public GenresService(@Qualifier("genresDbStorage") GenresStorage genresStorage, Validator validator) {
+    public GenresService(@Qualifier("referenceDataCache") GenresStorage genresStorage, Validator validator) {
         this.genresStorage = genresStorage;
         this.validator = validator;
     }
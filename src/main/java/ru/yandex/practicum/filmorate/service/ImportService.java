@@ -0,0 +1,207 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmCategories;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Класс, ответственный за массовую загрузку фильмов, пользователей, лайков и дружбы из NDJSON
+ * <p>
+ * Каждая строка проверяется отдельно, корректные строки пишутся пачками по chunk-size строк
+ * в отдельной транзакции. Если пачка не записалась, она делится пополам до тех пор, пока
+ * ошибочные строки не будут найдены и возвращены, не прерывая остальную загрузку.
+ * <p>
+ * Время транзакции пачки ограничено chunk-timeout-seconds: запросы внутри неё получают оставшееся время
+ * транзакции вместо общего spring.jdbc.template.query-timeout.
+ */
+@Slf4j
+@Service
+public class ImportService {
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final FilmService filmService;
+    private final UserService userService;
+    private final Validator validator;
+    private final PopularityIndex popularityIndex;
+    private final FilmSearchIndex filmSearchIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final int batchSize;
+
+    public ImportService(@Qualifier("filmDbStorage") FilmStorage filmStorage,
+                         @Qualifier("cachedUserStorage") UserStorage userStorage,
+                         FilmService filmService,
+                         UserService userService,
+                         Validator validator,
+                         PopularityIndex popularityIndex,
+                         FilmSearchIndex filmSearchIndex,
+                         PlatformTransactionManager transactionManager,
+                         ObjectMapper objectMapper,
+                         @Value("${filmorate.import.chunk-size:10000}") int chunkSize,
+                         @Value("${filmorate.import.batch-size:1000}") int batchSize,
+                         @Value("${filmorate.import.chunk-timeout-seconds:60}") int chunkTimeoutSeconds) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.filmService = filmService;
+        this.userService = userService;
+        this.validator = validator;
+        this.popularityIndex = popularityIndex;
+        this.filmSearchIndex = filmSearchIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setTimeout(chunkTimeoutSeconds);
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Загрузка фильмов
+     */
+    public ImportResult importFilms(InputStream body) throws IOException {
+        return load(body, Film.class, film -> {
+            filmService.validationFieldsFilm(film);
+            if (film.getMpa() == null) {
+                throw new ValidationException("Необходимо указать mpa фильма");
+            }
+        }, films -> filmStorage.addAll(films, batchSize),
+                films -> films.forEach(film -> {
+                    popularityIndex.addFilm(film.getId(), FilmCategories.of(film));
+                    filmSearchIndex.add(film);
+                }));
+    }
+
+    /**
+     * Загрузка пользователей
+     */
+    public ImportResult importUsers(InputStream body) throws IOException {
+        return load(body, User.class, user -> {
+            userService.validationFieldsUser(user);
+            if (user.getName() == null || validator.validationUserName(user)) {
+                user.setName(user.getLogin());
+            }
+        }, users -> userStorage.addAll(users, batchSize), users -> {
+        });
+    }
+
+    /**
+     * Загрузка лайков
+     */
+    public ImportResult importLikes(InputStream body) throws IOException {
+        return load(body, FilmLike.class, like -> {
+            if (validator.validationId(like.getFilmId()) || validator.validationId(like.getUserId())) {
+                throw new NotFoundException("id пользователя или фильма должен быть больше 0");
+            }
+        }, likes -> filmStorage.addLikes(likes, batchSize),
+                likes -> likes.stream()
+                        .collect(Collectors.groupingBy(FilmLike::getFilmId, Collectors.counting()))
+                        .forEach(popularityIndex::addLikes));
+    }
+
+    /**
+     * Загрузка заявок в друзья
+     */
+    public ImportResult importFriendships(InputStream body) throws IOException {
+        return load(body, Friendship.class, friendship -> {
+            if (validator.validationId(friendship.getUserId()) || validator.validationId(friendship.getFriendId())) {
+                throw new NotFoundException("id пользователя или добавляемого друга должен быть больше 0");
+            }
+        }, friendships -> userStorage.addFriends(friendships, batchSize), friendships -> {
+        });
+    }
+
+    private <T> ImportResult load(InputStream body, Class<T> type, Consumer<T> validation,
+                                  Consumer<List<T>> writer, Consumer<List<T>> afterCommit) throws IOException {
+        ImportResult result = new ImportResult();
+        List<T> chunk = new ArrayList<>(chunkSize);
+        List<Long> chunkLines = new ArrayList<>(chunkSize);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        long lineNumber = 0;
+
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                T item = objectMapper.readValue(line, type);
+                validation.accept(item);
+                chunk.add(item);
+                chunkLines.add(lineNumber);
+            } catch (JsonProcessingException e) {
+                result.addError(lineNumber, e.getOriginalMessage());
+            } catch (ValidationException | NotFoundException e) {
+                result.addError(lineNumber, e.getMessage());
+            } catch (RuntimeException e) {
+                result.addError(lineNumber, "Некорректная строка: " + e.getMessage());
+            }
+
+            if (chunk.size() >= chunkSize) {
+                flush(chunk, chunkLines, writer, afterCommit, result);
+            }
+        }
+        flush(chunk, chunkLines, writer, afterCommit, result);
+
+        log.info("Загружено строк {}: {}, с ошибками: {}", type.getSimpleName(), result.getImported(),
+                result.getFailed());
+        return result;
+    }
+
+    private <T> void flush(List<T> chunk, List<Long> chunkLines, Consumer<List<T>> writer,
+                           Consumer<List<T>> afterCommit, ImportResult result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        write(chunk, chunkLines, writer, afterCommit, result);
+        chunk.clear();
+        chunkLines.clear();
+    }
+
+    /**
+     * Запись строк одной транзакцией; если она не прошла, строки делятся пополам и пишутся по отдельности,
+     * пока ошибочная строка не останется одна. Несколько ошибочных строк в пачке стоят порядка
+     * log2(chunk-size) транзакций на каждую, а не по транзакции на каждую строку пачки.
+     */
+    private <T> void write(List<T> rows, List<Long> lines, Consumer<List<T>> writer,
+                           Consumer<List<T>> afterCommit, ImportResult result) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> writer.accept(rows));
+            afterCommit.accept(rows);
+            result.addImported(rows.size());
+        } catch (DataAccessException e) {
+            if (rows.size() == 1) {
+                result.addError(lines.get(0), e.getMostSpecificCause().getMessage());
+                return;
+            }
+            int half = rows.size() / 2;
+            write(rows.subList(0, half), lines.subList(0, half), writer, afterCommit, result);
+            write(rows.subList(half, rows.size()), lines.subList(half, lines.size()), writer, afterCommit, result);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.model.FilmLike;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Журнал лайков, которые ещё не записаны в базу: строка «+ filmId userId» или «- filmId userId» на каждое изменение
+ * <p>
+ * Журнал разбит на сегменты likes-N.log. Перед каждой записью в базу текущий сегмент закрывается и начинается
+ * следующий, а закрытые сегменты удаляются после успешной записи. Повтор журнала идемпотентен: при старте
+ * из всех сегментов берётся последнее состояние каждой пары фильм — пользователь.
+ */
+class LikeLog implements Closeable {
+    private static final String PREFIX = "likes-";
+    private static final String SUFFIX = ".log";
+
+    private final Path dir;
+    private final boolean sync;
+    private FileChannel channel;
+    private Path current;
+    private long sequence;
+
+    LikeLog(Path dir, boolean sync) throws IOException {
+        this.dir = dir;
+        this.sync = sync;
+        Files.createDirectories(dir);
+        List<Path> existing = segments();
+        sequence = existing.isEmpty() ? 0 : number(existing.get(existing.size() - 1));
+        open();
+    }
+
+    /**
+     * Сегменты, оставшиеся от прошлого запуска, кроме текущего
+     */
+    synchronized List<Path> previousSegments() throws IOException {
+        return segments().stream()
+                .filter(segment -> !segment.equals(current))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Последнее состояние каждой пары фильм — пользователь по сегментам в порядке их записи
+     */
+    static Map<FilmLike, Boolean> read(List<Path> segments) throws IOException {
+        Map<FilmLike, Boolean> state = new LinkedHashMap<>();
+        for (Path segment : segments) {
+            try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.US_ASCII)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] fields = line.split(" ");
+                    if (fields.length != 3) {
+                        // Строка, недописанная при аварийной остановке
+                        continue;
+                    }
+                    FilmLike like = new FilmLike(Long.parseLong(fields[1]), Long.parseLong(fields[2]));
+                    state.remove(like);
+                    state.put(like, "+".equals(fields[0]));
+                }
+            }
+        }
+        return state;
+    }
+
+    synchronized void append(boolean liked, FilmLike like) throws IOException {
+        String line = (liked ? "+ " : "- ") + like.getFilmId() + " " + like.getUserId() + "\n";
+        ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.US_ASCII));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        if (sync) {
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Закрывает текущий сегмент и начинает следующий
+     *
+     * @return закрытый сегмент
+     */
+    synchronized Path rotate() throws IOException {
+        Path closed = current;
+        channel.close();
+        open();
+        return closed;
+    }
+
+    void delete(List<Path> segments) throws IOException {
+        for (Path segment : segments) {
+            Files.deleteIfExists(segment);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private void open() throws IOException {
+        sequence++;
+        current = dir.resolve(PREFIX + sequence + SUFFIX);
+        channel = FileChannel.open(current, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().startsWith(PREFIX)
+                            && file.getFileName().toString().endsWith(SUFFIX))
+                    .sorted(Comparator.comparingLong(LikeLog::number))
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+
+    private static long number(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
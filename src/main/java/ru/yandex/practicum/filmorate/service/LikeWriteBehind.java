@@ -0,0 +1,315 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.OverloadedException;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Отложенная запись лайков (filmorate.likes.write-behind.enabled=true)
+ * <p>
+ * Лайк и его отмена не пишутся в базу в запросе, а попадают в ограниченную очередь, где схлопываются
+ * по паре фильм — пользователь: в базу уходит только последнее состояние пары. Фоновый поток раз в
+ * flush-interval-ms или при накоплении batch-size пар записывает очередь пакетами, по транзакции на пакет.
+ * <p>
+ * Рейтинг популярности меняется сразу при постановке в очередь, поэтому /films/popular видит ещё
+ * не записанные лайки. После записи рейтинг поправляется на разницу между ожидаемым и фактическим
+ * изменением: повторный лайк или отмена несуществующего лайка в базе ничего не меняют.
+ * <p>
+ * Если очередь заполнена, запрос ждёт освобождения места не дольше offer-timeout-ms, а затем получает 503.
+ * С log-dir каждое изменение перед постановкой в очередь дописывается в журнал {@link LikeLog},
+ * который повторяется при следующем запуске: после падения процесса принятые лайки не теряются.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty("filmorate.likes.write-behind.enabled")
+public class LikeWriteBehind {
+    private final FilmStorage filmStorage;
+    private final PopularityIndex popularityIndex;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long offerTimeoutMs;
+    private final LikeLog likeLog;
+
+    private final Map<FilmLike, PendingLike> pending = new ConcurrentHashMap<>();
+    private final ReadWriteLock snapshotLock = new ReentrantReadWriteLock();
+    private final Object notFull = new Object();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final List<Path> unflushedSegments = new ArrayList<>();
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "likes-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public LikeWriteBehind(@Qualifier("filmDbStorage") FilmStorage filmStorage, PopularityIndex popularityIndex,
+                           @Value("${filmorate.likes.write-behind.capacity:100000}") int capacity,
+                           @Value("${filmorate.likes.write-behind.batch-size:1000}") int batchSize,
+                           @Value("${filmorate.likes.write-behind.flush-interval-ms:100}") long flushIntervalMs,
+                           @Value("${filmorate.likes.write-behind.offer-timeout-ms:1000}") long offerTimeoutMs,
+                           @Value("${filmorate.likes.write-behind.log-dir:}") String logDir,
+                           @Value("${filmorate.likes.write-behind.log-sync:false}") boolean logSync)
+            throws IOException {
+        this.filmStorage = filmStorage;
+        this.popularityIndex = popularityIndex;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.likeLog = logDir.isBlank() ? null : new LikeLog(Path.of(logDir), logSync);
+    }
+
+    /**
+     * Повтор журнала прошлого запуска и запуск фоновой записи. Рейтинг к этому моменту уже загружен
+     * из базы, поэтому повторённые изменения добавляются к нему по фактическому результату записи.
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        if (likeLog != null) {
+            List<Path> segments = likeLog.previousSegments();
+            Map<FilmLike, Boolean> state = LikeLog.read(segments);
+            if (!state.isEmpty()) {
+                List<FilmLike> liked = new ArrayList<>();
+                List<FilmLike> unliked = new ArrayList<>();
+                state.forEach((like, isLiked) -> (isLiked ? liked : unliked).add(like));
+                filmStorage.writeLikes(liked, unliked).forEach(popularityIndex::addLikes);
+                log.info("Из журнала лайков восстановлено {} изменений", state.size());
+            }
+            likeLog.delete(segments);
+        }
+        writer.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        popularityIndex.setLikeWriteBehind(this);
+    }
+
+    /**
+     * Запись оставшейся очереди при остановке приложения
+     */
+    @PreDestroy
+    public void stop() throws Exception {
+        popularityIndex.setLikeWriteBehind(null);
+        writer.shutdown();
+        writer.awaitTermination(1, TimeUnit.MINUTES);
+        flush();
+        if (likeLog != null) {
+            likeLog.close();
+        }
+    }
+
+    /**
+     * Ставит лайк в очередь
+     *
+     * @return false, если в очереди уже лежит лайк этого пользователя этому фильму
+     */
+    public boolean addLike(long filmId, long userId) {
+        return enqueue(new FilmLike(filmId, userId), true);
+    }
+
+    /**
+     * Ставит отмену лайка в очередь
+     *
+     * @return false, если в очереди уже лежит отмена лайка этого пользователя этому фильму
+     */
+    public boolean deleteLike(long filmId, long userId) {
+        return enqueue(new FilmLike(filmId, userId), false);
+    }
+
+    /**
+     * Количество пар фильм — пользователь, ожидающих записи
+     */
+    public int size() {
+        return pending.size();
+    }
+
+    /**
+     * Выполнение action, если все принятые изменения уже записаны; запись очереди ждёт его окончания,
+     * а новые лайки по-прежнему принимаются
+     *
+     * @return false, если в очереди есть незаписанные изменения и action не выполнялся
+     */
+    public synchronized boolean runIfFlushed(Runnable action) {
+        if (!pending.isEmpty()) {
+            return false;
+        }
+        action.run();
+        return true;
+    }
+
+    /**
+     * Запись всей очереди в базу. Вызывается фоновым потоком, а также при остановке приложения
+     */
+    public synchronized void flush() throws IOException {
+        flushRequested.set(false);
+        List<Map.Entry<FilmLike, PendingLike>> snapshot = new ArrayList<>();
+
+        snapshotLock.writeLock().lock();
+        try {
+            if (likeLog != null) {
+                unflushedSegments.add(likeLog.rotate());
+            }
+            for (FilmLike like : pending.keySet()) {
+                PendingLike change = pending.remove(like);
+                if (change != null) {
+                    snapshot.add(Map.entry(like, change));
+                }
+            }
+        } finally {
+            snapshotLock.writeLock().unlock();
+        }
+        synchronized (notFull) {
+            notFull.notifyAll();
+        }
+
+        for (int from = 0; from < snapshot.size(); from += batchSize) {
+            List<Map.Entry<FilmLike, PendingLike>> batch = snapshot.subList(from,
+                    Math.min(from + batchSize, snapshot.size()));
+            try {
+                write(batch);
+            } catch (RuntimeException e) {
+                requeue(snapshot.subList(from, snapshot.size()));
+                throw e;
+            }
+        }
+
+        if (likeLog != null) {
+            likeLog.delete(unflushedSegments);
+            unflushedSegments.clear();
+        }
+    }
+
+    private boolean enqueue(FilmLike like, boolean liked) {
+        awaitCapacity(like);
+
+        boolean[] changed = new boolean[1];
+        snapshotLock.readLock().lock();
+        try {
+            pending.compute(like, (key, current) -> {
+                if (current != null && current.liked == liked) {
+                    return current;
+                }
+                if (likeLog != null) {
+                    try {
+                        likeLog.append(liked, key);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                changed[0] = true;
+                long applied = popularityIndex.addLikes(key.getFilmId(), liked ? 1 : -1);
+                return new PendingLike(liked, (current == null ? 0 : current.applied) + applied);
+            });
+        } finally {
+            snapshotLock.readLock().unlock();
+        }
+
+        if (pending.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            writer.execute(this::flushQuietly);
+        }
+        return changed[0];
+    }
+
+    /**
+     * Ожидание места в очереди. Изменение пары, которая уже ждёт записи, места не занимает
+     */
+    private void awaitCapacity(FilmLike like) {
+        if (pending.size() < capacity || pending.containsKey(like)) {
+            return;
+        }
+        if (flushRequested.compareAndSet(false, true)) {
+            writer.execute(this::flushQuietly);
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(offerTimeoutMs);
+        synchronized (notFull) {
+            while (pending.size() >= capacity && !pending.containsKey(like)) {
+                long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMs <= 0) {
+                    log.warn("Очередь лайков заполнена: {} изменений ожидают записи", pending.size());
+                    throw new OverloadedException("Очередь лайков заполнена, повторите запрос позже");
+                }
+                try {
+                    notFull.wait(remainingMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new OverloadedException("Ожидание места в очереди лайков прервано");
+                }
+            }
+        }
+    }
+
+    /**
+     * Запись пакета и поправка рейтинга на разницу между ожидаемым и фактическим изменением
+     */
+    private void write(List<Map.Entry<FilmLike, PendingLike>> batch) {
+        List<FilmLike> liked = new ArrayList<>();
+        List<FilmLike> unliked = new ArrayList<>();
+        Map<Long, Long> applied = new HashMap<>();
+        for (Map.Entry<FilmLike, PendingLike> change : batch) {
+            (change.getValue().liked ? liked : unliked).add(change.getKey());
+            applied.merge(change.getKey().getFilmId(), change.getValue().applied, Long::sum);
+        }
+
+        Map<Long, Long> actual = filmStorage.writeLikes(liked, unliked);
+
+        applied.forEach((filmId, expected) -> {
+            long correction = actual.getOrDefault(filmId, 0L) - expected;
+            if (correction != 0) {
+                popularityIndex.addLikes(filmId, correction);
+            }
+        });
+    }
+
+    /**
+     * Возврат незаписанных изменений в очередь: более новое состояние пары остаётся, а изменения рейтинга
+     * суммируются, чтобы следующая запись поправила его целиком
+     */
+    private void requeue(List<Map.Entry<FilmLike, PendingLike>> changes) {
+        snapshotLock.readLock().lock();
+        try {
+            for (Map.Entry<FilmLike, PendingLike> change : changes) {
+                pending.merge(change.getKey(), change.getValue(), (newer, older) ->
+                        new PendingLike(newer.liked, newer.applied + older.applied));
+            }
+        } finally {
+            snapshotLock.readLock().unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Не удалось записать очередь лайков, запись будет повторена", e);
+        }
+    }
+
+    private static class PendingLike {
+        final boolean liked;
+        final long applied;
+
+        PendingLike(boolean liked, long applied) {
+            this.liked = liked;
+            this.applied = applied;
+        }
+    }
+}
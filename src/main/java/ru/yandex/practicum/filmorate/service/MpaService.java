@@ -18,7 +18,7 @@ public class MpaService {
     private final MpaStorage mpaStorage;
     private final Validator validator;
 
-    public MpaService(@Qualifier("mpaDbStorage") MpaStorage mpaStorage, Validator validator) {
+    public MpaService(@Qualifier("referenceDataCache") MpaStorage mpaStorage, Validator validator) {
         this.mpaStorage = mpaStorage;
         this.validator = validator;
     }
@@ -0,0 +1,334 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.FilmCategories;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Рейтинг фильмов по количеству лайков, который хранится в памяти и обновляется при каждом лайке,
+ * а также такие же рейтинги внутри каждого жанра и каждого рейтинга mpa
+ * <p>
+ * Счётчик и категории фильма меняются атомарно внутри compute, поэтому обновления разных фильмов идут
+ * параллельно. Новая запись рейтинга добавляется раньше, чем удаляется старая: читатель может на мгновение
+ * увидеть фильм дважды (повтор отбрасывается), но никогда не потеряет его.
+ * <p>
+ * Категории фильма задаются при добавлении и меняются {@link #updateCategories(long, FilmCategories)} после
+ * записи фильма, в том числе после изменения его жанров. {@link #load()} строит все рейтинги заново
+ * по хранилищу.
+ * <p>
+ * Каждое фактическое изменение количества лайков передаётся в {@link TrendingIndex}, поэтому рейтинг трендов
+ * видит лайки из всех источников: запросов, отложенной записи и загрузки.
+ */
+@Slf4j
+@Component
+public class PopularityIndex {
+    private static final Comparator<Entry> BY_LIKES_DESC = Comparator.comparingLong(Entry::getLikes).reversed()
+            .thenComparingLong(Entry::getFilmId);
+    private static final FilmCategories NO_CATEGORIES = new FilmCategories(0, List.of());
+
+    private final FilmStorage filmStorage;
+    private final TrendingIndex trendingIndex;
+    private final Map<Long, Rating> ratings = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>(BY_LIKES_DESC);
+    private final Map<Integer, ConcurrentSkipListSet<Entry>> genreRankings = new ConcurrentHashMap<>();
+    private final Map<Integer, ConcurrentSkipListSet<Entry>> mpaRankings = new ConcurrentHashMap<>();
+    private volatile LikeWriteBehind likeWriteBehind;
+
+    /**
+     * Рейтинг без передачи изменений в рейтинг трендов
+     */
+    PopularityIndex(FilmStorage filmStorage) {
+        this(filmStorage, null);
+    }
+
+    @Autowired
+    public PopularityIndex(@Qualifier("filmDbStorage") FilmStorage filmStorage, TrendingIndex trendingIndex) {
+        this.filmStorage = filmStorage;
+        this.trendingIndex = trendingIndex;
+    }
+
+    /**
+     * Построение всех рейтингов с нуля по количеству лайков и категориям фильмов из хранилища
+     */
+    @PostConstruct
+    public void load() {
+        Map<Long, FilmCategories> categories = filmStorage.getCategoriesByFilm();
+        ratings.clear();
+        ranking.clear();
+        genreRankings.clear();
+        mpaRankings.clear();
+        filmStorage.getLikesCountByFilm().forEach((filmId, likes) ->
+                put(filmId, likes, categories.getOrDefault(filmId, NO_CATEGORIES)));
+
+        log.info("Рейтинг популярности загружен: {} фильмов, {} жанров, {} рейтингов mpa",
+                ratings.size(), genreRankings.size(), mpaRankings.size());
+    }
+
+    /**
+     * Возвращает id самых популярных фильмов, отсортированные по убыванию количества лайков
+     */
+    public List<Long> getTop(int count) {
+        return top(ranking, count);
+    }
+
+    /**
+     * Самые популярные фильмы каждого жанра, в котором есть хотя бы один фильм
+     */
+    public Map<Integer, List<Long>> getTopByGenre(int count) {
+        return tops(genreRankings, count);
+    }
+
+    /**
+     * Самые популярные фильмы каждого рейтинга mpa, в котором есть хотя бы один фильм
+     */
+    public Map<Integer, List<Long>> getTopByMpa(int count) {
+        return tops(mpaRankings, count);
+    }
+
+    /**
+     * Добавление фильма без лайков и без категорий
+     */
+    public void addFilm(long filmId) {
+        addFilm(filmId, NO_CATEGORIES);
+    }
+
+    /**
+     * Добавление фильма без лайков
+     */
+    public void addFilm(long filmId, FilmCategories categories) {
+        ratings.computeIfAbsent(filmId, id -> {
+            Rating rating = new Rating(0, categories);
+            move(id, null, rating);
+            return rating;
+        });
+    }
+
+    /**
+     * Перенос фильма в рейтинги его новых жанров и рейтинга mpa с сохранением количества лайков
+     */
+    public void updateCategories(long filmId, FilmCategories categories) {
+        ratings.computeIfPresent(filmId, (id, rating) -> {
+            Rating updated = new Rating(rating.getLikes(), categories);
+            move(id, rating, updated);
+            return updated;
+        });
+    }
+
+    /**
+     * Удаление фильма из рейтинга
+     */
+    public void deleteFilm(long filmId) {
+        ratings.computeIfPresent(filmId, (id, rating) -> {
+            move(id, rating, null);
+            return null;
+        });
+        if (trendingIndex != null) {
+            trendingIndex.deleteFilm(filmId);
+        }
+    }
+
+    public void addLike(long filmId) {
+        changeLikes(filmId, 1);
+    }
+
+    /**
+     * Изменение количества лайков фильма на delta
+     *
+     * @return на сколько количество изменилось на самом деле: 0 для фильма не из рейтинга,
+     * меньше по модулю, если количество упёрлось в ноль
+     */
+    public long addLikes(long filmId, long delta) {
+        return changeLikes(filmId, delta);
+    }
+
+    public void deleteLike(long filmId) {
+        changeLikes(filmId, -1);
+    }
+
+    /**
+     * Сверка рейтинга с количеством лайков в хранилище с исправлением расхождений
+     * <p>
+     * Лайки считаются по самой таблице лайков, а не по счётчику films.likes_count, из которого рейтинг
+     * загружается при старте: иначе расхождение счётчика с лайками перешло бы в рейтинг и не было бы замечено.
+     * Сам счётчик исправляет LikesCountReconciliationJob.
+     * <p>
+     * Лайк, пришедший во время сверки, может быть перезаписан прочитанным значением, но это расхождение
+     * будет исправлено следующей сверкой.
+     * <p>
+     * При отложенной записи рейтинг уже учитывает лайки из очереди, которых ещё нет в хранилище, поэтому
+     * сверка выполняется только при пустой очереди, а фоновая запись на время сверки приостанавливается.
+     *
+     * @return количество фильмов, у которых количество лайков расходилось
+     */
+    @Scheduled(fixedDelayString = "${filmorate.popularity.check-interval-ms:3600000}",
+            initialDelayString = "${filmorate.popularity.check-interval-ms:3600000}")
+    public int checkConsistency() {
+        LikeWriteBehind writeBehind = likeWriteBehind;
+        if (writeBehind == null) {
+            return compareWithStorage();
+        }
+        int[] mismatches = new int[1];
+        if (!writeBehind.runIfFlushed(() -> mismatches[0] = compareWithStorage())) {
+            log.info("Сверка рейтинга пропущена: {} изменений лайков ожидают записи", writeBehind.size());
+        }
+        return mismatches[0];
+    }
+
+    /**
+     * Отложенная запись лайков, на время работы которой сверка с хранилищем ждёт пустой очереди
+     */
+    void setLikeWriteBehind(LikeWriteBehind likeWriteBehind) {
+        this.likeWriteBehind = likeWriteBehind;
+    }
+
+    private int compareWithStorage() {
+        Map<Long, Long> stored = filmStorage.countLikesByFilm();
+        Map<Long, Long> indexed = new HashMap<>();
+        ratings.forEach((filmId, rating) -> indexed.put(filmId, rating.getLikes()));
+        int mismatches = 0;
+
+        for (Map.Entry<Long, Long> film : stored.entrySet()) {
+            Long likes = indexed.remove(film.getKey());
+            if (!film.getValue().equals(likes)) {
+                log.warn("Рейтинг фильма {} расходится с хранилищем: {} вместо {}",
+                        film.getKey(), likes, film.getValue());
+                put(film.getKey(), film.getValue(), null);
+                mismatches++;
+            }
+        }
+        for (long filmId : indexed.keySet()) {
+            log.warn("Фильм {} есть в рейтинге, но отсутствует в хранилище", filmId);
+            deleteFilm(filmId);
+            mismatches++;
+        }
+        return mismatches;
+    }
+
+    private long changeLikes(long filmId, long delta) {
+        long[] applied = new long[1];
+        ratings.computeIfPresent(filmId, (id, rating) -> {
+            long updated = Math.max(0, rating.getLikes() + delta);
+            if (updated == rating.getLikes()) {
+                return rating;
+            }
+            Rating changed = new Rating(updated, rating.getCategories());
+            move(id, rating, changed);
+            applied[0] = updated - rating.getLikes();
+            return changed;
+        });
+        if (applied[0] != 0 && trendingIndex != null) {
+            trendingIndex.addLikes(filmId, applied[0]);
+        }
+        return applied[0];
+    }
+
+    /**
+     * Запись количества лайков фильма; без categories сохраняются прежние категории фильма
+     */
+    private void put(long filmId, long likes, FilmCategories categories) {
+        ratings.compute(filmId, (id, previous) -> {
+            Rating rating = new Rating(likes, categories != null ? categories
+                    : previous != null ? previous.getCategories() : NO_CATEGORIES);
+            move(id, previous, rating);
+            return rating;
+        });
+    }
+
+    /**
+     * Перенос записей фильма между рейтингами: сначала добавляются новые записи, затем удаляются старые,
+     * которые не совпадают с новыми
+     */
+    private void move(long filmId, Rating previous, Rating updated) {
+        Long previousLikes = previous == null ? null : previous.getLikes();
+        Long updatedLikes = updated == null ? null : updated.getLikes();
+        place(ranking, filmId, previousLikes, updatedLikes);
+
+        Set<Integer> mpaIds = new HashSet<>();
+        Set<Integer> genreIds = new HashSet<>();
+        for (Rating rating : new Rating[]{previous, updated}) {
+            if (rating != null) {
+                if (rating.getCategories().getMpaId() > 0) {
+                    mpaIds.add(rating.getCategories().getMpaId());
+                }
+                genreIds.addAll(rating.getCategories().getGenreIds());
+            }
+        }
+        for (int mpaId : mpaIds) {
+            place(mpaRankings.computeIfAbsent(mpaId, id -> new ConcurrentSkipListSet<>(BY_LIKES_DESC)), filmId,
+                    previous != null && previous.getCategories().getMpaId() == mpaId ? previousLikes : null,
+                    updated != null && updated.getCategories().getMpaId() == mpaId ? updatedLikes : null);
+        }
+        for (int genreId : genreIds) {
+            place(genreRankings.computeIfAbsent(genreId, id -> new ConcurrentSkipListSet<>(BY_LIKES_DESC)), filmId,
+                    previous != null && previous.getCategories().getGenreIds().contains(genreId) ? previousLikes : null,
+                    updated != null && updated.getCategories().getGenreIds().contains(genreId) ? updatedLikes : null);
+        }
+    }
+
+    private static void place(Set<Entry> ranking, long filmId, Long previousLikes, Long updatedLikes) {
+        if (updatedLikes != null) {
+            ranking.add(new Entry(filmId, updatedLikes));
+        }
+        if (previousLikes != null && !previousLikes.equals(updatedLikes)) {
+            ranking.remove(new Entry(filmId, previousLikes));
+        }
+    }
+
+    private static List<Long> top(Set<Entry> ranking, int count) {
+        List<Long> filmIds = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+
+        for (Entry entry : ranking) {
+            if (filmIds.size() >= count) {
+                break;
+            }
+            if (seen.add(entry.getFilmId())) {
+                filmIds.add(entry.getFilmId());
+            }
+        }
+        return filmIds;
+    }
+
+    private static Map<Integer, List<Long>> tops(Map<Integer, ConcurrentSkipListSet<Entry>> rankings, int count) {
+        Map<Integer, List<Long>> tops = new TreeMap<>();
+        rankings.forEach((id, ranking) -> {
+            List<Long> filmIds = top(ranking, count);
+            if (!filmIds.isEmpty()) {
+                tops.put(id, filmIds);
+            }
+        });
+        return tops;
+    }
+
+    /**
+     * Количество лайков и категории фильма
+     */
+    @Value
+    private static class Rating {
+        long likes;
+        FilmCategories categories;
+    }
+
+    @Value
+    private static class Entry {
+        long filmId;
+        long likes;
+    }
+}
@@ -0,0 +1,170 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.Leaderboards;
+import ru.yandex.practicum.filmorate.storage.ReactiveFilmStorage;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Операции с фильмами для реактивного режима
+ * <p>
+ * Чтение идёт через R2DBC и не занимает поток на время запроса. Запись выполняется прежним {@link FilmService}
+ * на boundedElastic: транзакции, пакетная запись жанров и рейтинг популярности остаются общими для обоих режимов.
+ */
+@Slf4j
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveFilmService {
+    private final ReactiveFilmStorage filmStorage;
+    private final FilmService filmService;
+    private final Validator validator;
+    private final PopularityIndex popularityIndex;
+    private final FilmSearchIndex filmSearchIndex;
+    private final TrendingIndex trendingIndex;
+
+    @Autowired
+    public ReactiveFilmService(ReactiveFilmStorage filmStorage, FilmService filmService, Validator validator,
+                               PopularityIndex popularityIndex, FilmSearchIndex filmSearchIndex,
+                               TrendingIndex trendingIndex) {
+        this.filmStorage = filmStorage;
+        this.filmService = filmService;
+        this.validator = validator;
+        this.popularityIndex = popularityIndex;
+        this.filmSearchIndex = filmSearchIndex;
+        this.trendingIndex = trendingIndex;
+    }
+
+    /**
+     * Возвращает все фильмы по мере чтения из базы
+     */
+    public Flux<Film> getFilmAll() {
+        return filmStorage.getFilmAll();
+    }
+
+    /**
+     * Возвращает страницу фильмов с id больше afterId
+     */
+    public Flux<Film> getFilmPage(long afterId, int limit) {
+        try {
+            if (validator.validationPage(afterId, limit)) {
+                throw new ValidationException("Курсор страницы не может быть меньше 0, размер страницы — от 1 до 1000");
+            }
+        } catch (ValidationException e) {
+            log.warn(e.getMessage());
+            throw e;
+        }
+        return filmStorage.getFilmPage(afterId, limit);
+    }
+
+    /**
+     * Возвращает фильмы, подходящие под фильтр: запрос с фильтром выполняет {@link FilmService} на boundedElastic
+     */
+    public Flux<Film> getFilms(FilmFilter filter) {
+        filmService.validationFilter(filter);
+        return blocking(() -> filmService.getFilms(filter)).flatMapIterable(films -> films);
+    }
+
+    public Flux<Film> getFilmPage(FilmFilter filter, long afterId, int limit) {
+        filmService.validationFilter(filter);
+        return blocking(() -> filmService.getFilmPage(filter, afterId, limit)).flatMapIterable(films -> films);
+    }
+
+    /**
+     * Возвращает фильм по id
+     */
+    public Mono<Film> getFilmById(long filmId) {
+        try {
+            if (validator.validationId(filmId)) {
+                throw new NotFoundException("id фильма должен быть больше 0");
+            }
+        } catch (NotFoundException e) {
+            log.warn(e.getMessage());
+            throw e;
+        }
+        return filmStorage.getFilmById(filmId)
+                .switchIfEmpty(Mono.error(() -> new NotFoundException(
+                        String.format("Фильм с id %d не найден", filmId))));
+    }
+
+    /**
+     * Возвращает популярные фильмы из рейтинга в памяти, сами фильмы читаются одним запросом
+     */
+    public Flux<Film> getPopularFilms(int count) {
+        filmService.validationCount(count);
+        return filmStorage.getFilmsByIds(popularityIndex.getTop(count));
+    }
+
+    public Flux<Film> getPopularFilms(FilmFilter filter, int count) {
+        filmService.validationFilter(filter);
+        return blocking(() -> filmService.getPopularFilms(filter, count)).flatMapIterable(films -> films);
+    }
+
+    public Mono<Leaderboards> getLeaderboards(int count) {
+        return blocking(() -> filmService.getLeaderboards(count));
+    }
+
+    /**
+     * Возвращает фильмы с наибольшим приростом лайков за окно из рейтинга трендов в памяти
+     */
+    public Flux<Film> getTrendingFilms(String window, int count) {
+        filmService.validationTrending(window, count);
+        return filmStorage.getFilmsByIds(trendingIndex.getTop(window, count));
+    }
+
+    /**
+     * Поиск фильмов по словам в названии и описании: проверка и поиск по индексу в памяти,
+     * сами фильмы читаются одним запросом
+     */
+    public Flux<Film> searchFilms(String query, int offset, int limit) {
+        try {
+            if (query == null || query.isBlank()) {
+                throw new ValidationException("Необходимо указать строку поиска");
+            }
+            if (validator.validationPage(offset, limit)) {
+                throw new ValidationException("Смещение не может быть меньше 0, размер страницы — от 1 до 1000");
+            }
+        } catch (ValidationException e) {
+            log.warn(e.getMessage());
+            throw e;
+        }
+        return filmStorage.getFilmsByIds(filmSearchIndex.search(query, offset, limit));
+    }
+
+    public Mono<Film> add(Film film) {
+        return blocking(() -> filmService.add(film));
+    }
+
+    public Mono<Film> update(Film film) {
+        return blocking(() -> filmService.update(film));
+    }
+
+    public Mono<Boolean> delete(long id) {
+        return blocking(() -> filmService.delete(id));
+    }
+
+    public Mono<Boolean> addLike(long filmId, long userId) {
+        return blocking(() -> filmService.addLike(filmId, userId));
+    }
+
+    public Mono<Boolean> deleteLike(long filmId, long userId) {
+        return blocking(() -> filmService.deleteLike(filmId, userId));
+    }
+
+    /**
+     * Вызов блокирующего сервиса вне потоков обработки запросов
+     */
+    private static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -0,0 +1,133 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.ReactiveUserStorage;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Операции с пользователями для реактивного режима
+ * <p>
+ * Чтение идёт через R2DBC, запись выполняется прежним {@link UserService} на boundedElastic,
+ * чтобы кэш друзей обновлялся так же, как в обычном режиме.
+ */
+@Slf4j
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserService {
+    private final ReactiveUserStorage userStorage;
+    private final UserService userService;
+    private final Validator validator;
+
+    @Autowired
+    public ReactiveUserService(ReactiveUserStorage userStorage, UserService userService, Validator validator) {
+        this.userStorage = userStorage;
+        this.userService = userService;
+        this.validator = validator;
+    }
+
+    /**
+     * Возвращает всех пользователей по мере чтения из базы
+     */
+    public Flux<User> getUserAll() {
+        return userStorage.getUserAll();
+    }
+
+    /**
+     * Возвращает страницу пользователей с id больше afterId
+     */
+    public Flux<User> getUserPage(long afterId, int limit) {
+        try {
+            if (validator.validationPage(afterId, limit)) {
+                throw new ValidationException("Курсор страницы не может быть меньше 0, размер страницы — от 1 до 1000");
+            }
+        } catch (ValidationException e) {
+            log.warn(e.getMessage());
+            throw e;
+        }
+        return userStorage.getUserPage(afterId, limit);
+    }
+
+    /**
+     * Возвращает пользователя по ID
+     */
+    public Mono<User> getUserById(long userId) {
+        try {
+            if (validator.validationId(userId)) {
+                throw new NotFoundException("id пользователя должен быть больше 0");
+            }
+        } catch (NotFoundException e) {
+            log.warn(e.getMessage());
+            throw e;
+        }
+        return userStorage.getUserById(userId)
+                .switchIfEmpty(Mono.error(() -> new NotFoundException(
+                        String.format("Пользователь с id %d не найден", userId))));
+    }
+
+    /**
+     * Возвращает друзей пользователя по мере чтения из базы
+     */
+    public Flux<User> getAllFriends(long userId) {
+        return userStorage.getFriendList(userId);
+    }
+
+    /**
+     * Возвращает общих друзей двух пользователей по мере чтения из базы
+     */
+    public Flux<User> getCommonFriends(long userId, long otherId) {
+        try {
+            if (validator.validationId(userId) || validator.validationId(otherId)) {
+                throw new NotFoundException("id пользователя должен быть больше 0");
+            }
+        } catch (NotFoundException e) {
+            log.warn(e.getMessage());
+            throw e;
+        }
+        return userStorage.getCommonFriends(userId, otherId);
+    }
+
+    /**
+     * Лента пользователя одним запросом прежнего {@link UserService} на boundedElastic
+     */
+    public Flux<Film> getFeed(long userId, int count) {
+        return blocking(() -> userService.getFeed(userId, count)).flatMapIterable(films -> films);
+    }
+
+    public Mono<User> add(User user) {
+        return blocking(() -> userService.add(user));
+    }
+
+    public Mono<User> update(User user) {
+        return blocking(() -> userService.update(user));
+    }
+
+    public Mono<Boolean> delete(long id) {
+        return blocking(() -> userService.delete(id));
+    }
+
+    public Mono<Long> addFriend(long userId, long friendId) {
+        return blocking(() -> userService.addFriend(userId, friendId));
+    }
+
+    public Mono<Long> deleteFriend(long userId, long friendId) {
+        return blocking(() -> userService.deleteFriend(userId, friendId));
+    }
+
+    /**
+     * Вызов блокирующего сервиса вне потоков обработки запросов
+     */
+    private static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+}
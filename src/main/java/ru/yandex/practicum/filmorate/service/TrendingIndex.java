@@ -0,0 +1,288 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Рейтинг фильмов по приросту лайков за скользящее окно для /films/trending
+ * <p>
+ * Время делится на корзины по bucket-seconds: в корзине копится прирост лайков каждого фильма (лайк +1,
+ * отмена −1). Для каждого окна из filmorate.trending.windows хранится сумма корзин, попавших в окно,
+ * поэтому запрос не складывает корзины и не читает таблицу лайков. Лайк увеличивает {@link LongAdder}
+ * своей корзины и каждого окна без блокировок, так что параллельные лайки одного фильма не мешают друг другу.
+ * <p>
+ * Первые {@value #MAX_TOP} фильмов окна собираются проходом по его суммам не чаще раза в refresh-ms,
+ * остальные запросы получают готовый список. Пока список пересобирается, запросы получают прежний.
+ * <p>
+ * Раз в expire-interval-ms корзины, вышедшие из окна, вычитаются из его сумм — по одной корзине, без
+ * остановки лайков и запросов. Корзины старше самого длинного окна удаляются. Точность окна — одна корзина.
+ * <p>
+ * При старте корзины заполняются лайками из хранилища, поставленными за самое длинное окно.
+ */
+@Slf4j
+@Component
+public class TrendingIndex {
+    static final int MAX_TOP = 1000;
+    private static final Comparator<long[]> WORST_FIRST = Comparator.<long[]>comparingLong(film -> film[1])
+            .thenComparing(Comparator.<long[]>comparingLong(film -> film[0]).reversed());
+
+    private final FilmStorage filmStorage;
+    private final long bucketMillis;
+    private final long refreshMillis;
+    private final LongSupplier currentTimeMillis;
+    private final Map<String, Window> windows = new LinkedHashMap<>();
+    private final ConcurrentNavigableMap<Long, Map<Long, LongAdder>> buckets = new ConcurrentSkipListMap<>();
+
+    @Autowired
+    public TrendingIndex(@Qualifier("filmDbStorage") FilmStorage filmStorage,
+                         @Value("${filmorate.trending.bucket-seconds:60}") long bucketSeconds,
+                         @Value("${filmorate.trending.refresh-ms:1000}") long refreshMs,
+                         @Value("${filmorate.trending.windows:1h,24h,7d}") List<String> windows) {
+        this(filmStorage, Duration.ofSeconds(bucketSeconds), Duration.ofMillis(refreshMs), windows,
+                System::currentTimeMillis);
+    }
+
+    TrendingIndex(FilmStorage filmStorage, Duration bucket, Duration refresh, List<String> windows,
+                  LongSupplier currentTimeMillis) {
+        this.filmStorage = filmStorage;
+        this.bucketMillis = bucket.toMillis();
+        this.refreshMillis = refresh.toMillis();
+        this.currentTimeMillis = currentTimeMillis;
+        long current = currentBucket();
+        for (String name : windows) {
+            Duration duration = parse(name);
+            if (duration == null || duration.toMillis() < bucketMillis) {
+                throw new IllegalArgumentException("Окно тренда должно быть вида 30m, 24h или 7d "
+                        + "и не короче корзины: " + name);
+            }
+            long size = (duration.toMillis() + bucketMillis - 1) / bucketMillis;
+            this.windows.put(name, new Window(size, current - size + 1));
+        }
+    }
+
+    /**
+     * Заполнение корзин лайками из хранилища, поставленными за самое длинное окно
+     */
+    @PostConstruct
+    public void load() {
+        long from = windows.values().stream()
+                .mapToLong(window -> window.expiredBefore)
+                .min()
+                .orElse(currentBucket());
+        long[] likes = new long[1];
+        filmStorage.streamLikesSince(Instant.ofEpochMilli(from * bucketMillis), (filmId, createdAt) -> {
+            record(filmId, 1, createdAt.toEpochMilli());
+            likes[0]++;
+        });
+        log.info("Рейтинг трендов загружен: {} лайков, окна {}", likes[0], windows.keySet());
+    }
+
+    /**
+     * Окна, для которых ведётся рейтинг, в порядке из настроек
+     */
+    public Set<String> getWindows() {
+        return windows.keySet();
+    }
+
+    /**
+     * Возвращает id фильмов с наибольшим приростом лайков за окно; фильмы без прироста не возвращаются
+     *
+     * @param window одно из {@link #getWindows()}
+     * @param count  не больше {@value #MAX_TOP}
+     */
+    public List<Long> getTop(String window, int count) {
+        List<Long> top = windows.get(window).top(currentTimeMillis.getAsLong(), refreshMillis);
+        return new ArrayList<>(top.subList(0, Math.min(count, top.size())));
+    }
+
+    /**
+     * Учёт изменения количества лайков фильма в текущей корзине
+     */
+    public void addLikes(long filmId, long delta) {
+        record(filmId, delta, currentTimeMillis.getAsLong());
+    }
+
+    /**
+     * Удаление фильма из всех окон и корзин
+     */
+    public void deleteFilm(long filmId) {
+        for (Map<Long, LongAdder> bucket : buckets.values()) {
+            bucket.remove(filmId);
+        }
+        for (Window window : windows.values()) {
+            window.counts.remove(filmId);
+            window.ranking = null;
+        }
+    }
+
+    /**
+     * Вычитание корзин, вышедших из окон, и удаление корзин старше самого длинного окна
+     */
+    @Scheduled(fixedDelayString = "${filmorate.trending.expire-interval-ms:1000}")
+    public synchronized void expire() {
+        long current = currentBucket();
+        long oldest = current;
+        for (Window window : windows.values()) {
+            long expiredBefore = current - window.size + 1;
+            if (expiredBefore > window.expiredBefore) {
+                Map<Long, Map<Long, LongAdder>> expired = buckets.subMap(window.expiredBefore, expiredBefore);
+                window.expiredBefore = expiredBefore;
+                for (Map<Long, LongAdder> bucket : expired.values()) {
+                    bucket.forEach((filmId, likes) -> {
+                        LongAdder count = window.counts.get(filmId);
+                        if (count != null) {
+                            count.add(-likes.sum());
+                        }
+                    });
+                }
+            }
+            oldest = Math.min(oldest, window.expiredBefore);
+        }
+        buckets.headMap(oldest).clear();
+    }
+
+    private void record(long filmId, long delta, long timeMillis) {
+        long bucket = timeMillis / bucketMillis;
+        boolean inWindow = false;
+        for (Window window : windows.values()) {
+            if (bucket >= window.expiredBefore) {
+                counter(window.counts, filmId).add(delta);
+                inWindow = true;
+            }
+        }
+        if (inWindow) {
+            Map<Long, LongAdder> counts = buckets.get(bucket);
+            if (counts == null) {
+                counts = buckets.computeIfAbsent(bucket, index -> new ConcurrentHashMap<>());
+            }
+            counter(counts, filmId).add(delta);
+        }
+    }
+
+    /**
+     * Счётчик фильма: существующий читается без блокировки, новый создаётся атомарно
+     */
+    private static LongAdder counter(Map<Long, LongAdder> counts, long filmId) {
+        LongAdder count = counts.get(filmId);
+        return count != null ? count : counts.computeIfAbsent(filmId, id -> new LongAdder());
+    }
+
+    private long currentBucket() {
+        return currentTimeMillis.getAsLong() / bucketMillis;
+    }
+
+    /**
+     * Разбор окна вида 30m, 24h или 7d
+     *
+     * @return null, если окно записано иначе
+     */
+    static Duration parse(String window) {
+        if (window == null || !window.matches("[1-9][0-9]{0,5}[mhd]")) {
+            return null;
+        }
+        long amount = Long.parseLong(window.substring(0, window.length() - 1));
+        switch (window.charAt(window.length() - 1)) {
+            case 'm':
+                return Duration.ofMinutes(amount);
+            case 'h':
+                return Duration.ofHours(amount);
+            default:
+                return Duration.ofDays(amount);
+        }
+    }
+
+    /**
+     * Скользящее окно: прирост лайков по фильмам за корзины начиная с expiredBefore
+     * и собранный по нему список лучших фильмов
+     */
+    private static class Window {
+        final long size;
+        final Map<Long, LongAdder> counts = new ConcurrentHashMap<>();
+        final AtomicBoolean rebuilding = new AtomicBoolean();
+        volatile long expiredBefore;
+        volatile Ranking ranking;
+
+        Window(long size, long expiredBefore) {
+            this.size = size;
+            this.expiredBefore = expiredBefore;
+        }
+
+        /**
+         * Список лучших фильмов: устаревший пересобирает один запрос, остальные тем временем получают прежний.
+         * Если списка ещё нет, его собирает каждый запрос
+         */
+        List<Long> top(long now, long refreshMillis) {
+            Ranking current = ranking;
+            if (current != null && (now - current.builtAt < refreshMillis || !rebuilding.compareAndSet(false, true))) {
+                return current.filmIds;
+            }
+            try {
+                Ranking rebuilt = new Ranking(now, build());
+                ranking = rebuilt;
+                return rebuilt.filmIds;
+            } finally {
+                if (current != null) {
+                    rebuilding.set(false);
+                }
+            }
+        }
+
+        /**
+         * Первые {@value #MAX_TOP} фильмов с положительным приростом: по убыванию прироста, затем по id
+         */
+        private List<Long> build() {
+            PriorityQueue<long[]> top = new PriorityQueue<>(MAX_TOP + 1, WORST_FIRST);
+            counts.forEach((filmId, count) -> {
+                long likes = count.sum();
+                if (likes <= 0) {
+                    return;
+                }
+                long[] film = {filmId, likes};
+                if (top.size() < MAX_TOP) {
+                    top.add(film);
+                } else if (WORST_FIRST.compare(film, top.peek()) > 0) {
+                    top.poll();
+                    top.add(film);
+                }
+            });
+
+            List<long[]> sorted = new ArrayList<>(top);
+            sorted.sort(WORST_FIRST.reversed());
+            List<Long> filmIds = new ArrayList<>(sorted.size());
+            sorted.forEach(film -> filmIds.add(film[0]));
+            return filmIds;
+        }
+    }
+
+    private static class Ranking {
+        final long builtAt;
+        final List<Long> filmIds;
+
+        Ranking(long builtAt, List<Long> filmIds) {
+            this.builtAt = builtAt;
+            this.filmIds = filmIds;
+        }
+    }
+}
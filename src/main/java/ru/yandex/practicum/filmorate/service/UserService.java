@@ -4,12 +4,16 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
 
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * Класс, ответственный за операции с пользователями
@@ -18,12 +22,20 @@ import java.util.*;
 @Service
 public class UserService {
     private final UserStorage userStorage;
+    private final FilmStorage filmStorage;
     private final Validator validator;
+    private final PopularityIndex popularityIndex;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
-    public UserService(@Qualifier("userDbStorage") UserStorage userStorage, Validator validator) {
+    public UserService(@Qualifier("cachedUserStorage") UserStorage userStorage,
+                       @Qualifier("filmDbStorage") FilmStorage filmStorage, Validator validator,
+                       PopularityIndex popularityIndex, TransactionTemplate transactionTemplate) {
         this.userStorage = userStorage;
+        this.filmStorage = filmStorage;
         this.validator = validator;
+        this.popularityIndex = popularityIndex;
+        this.transactionTemplate = transactionTemplate;
     }
 
     /**
@@ -33,6 +45,28 @@ public class UserService {
         return userStorage.getUserAll();
     }
 
+    /**
+     * Возвращает страницу пользователей с id больше afterId
+     */
+    public List<User> getUserPage(long afterId, int limit) {
+        try {
+            if (validator.validationPage(afterId, limit)) {
+                throw new ValidationException("Курсор страницы не может быть меньше 0, размер страницы — от 1 до 1000");
+            }
+        } catch (ValidationException e) {
+            log.warn(e.getMessage());
+            throw e;
+        }
+        return userStorage.getUserPage(afterId, limit);
+    }
+
+    /**
+     * Передаёт всех пользователей по одному по мере чтения из хранилища
+     */
+    public void streamUserAll(Consumer<User> action) {
+        userStorage.streamUserAll(action);
+    }
+
     /**
      * Возвращает пользователя по ID
      */
@@ -80,10 +114,19 @@ public class UserService {
     }
 
     /**
-     * Удаление пользователя
+     * Удаление пользователя; его лайки снимаются с рейтинга популярных фильмов после фиксации транзакции
      */
     public boolean delete(long id) {
-        return userStorage.delete(getUserById(id));
+        User user = getUserById(id);
+        List<Long> likedFilmIds = new ArrayList<>();
+        boolean deleted = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            likedFilmIds.addAll(filmStorage.getLikedFilmIds(id));
+            return userStorage.delete(user);
+        }));
+        if (deleted) {
+            likedFilmIds.forEach(popularityIndex::deleteLike);
+        }
+        return deleted;
     }
 
     /**
@@ -129,25 +172,35 @@ public class UserService {
      * Получение списка общих друзей двух пользователей
      */
     public List<User> getCommonFriends(long userId, long otherId) {
-        List<User> commonFriends = new ArrayList<>();
-
         try {
             if (validator.validationId(userId) || validator.validationId(otherId)) {
                 throw new NotFoundException("id пользователя должен быть больше 0");
             }
-            Set<Long> userFriends = new HashSet<>(userStorage.getFriendsIdListByUserId(userId));
-            Set<Long> otherFriends = new HashSet<>(userStorage.getFriendsIdListByUserId(otherId));
-
-            userFriends.retainAll(otherFriends);
+        } catch (NotFoundException e) {
+            log.warn(e.getMessage());
+            throw e;
+        }
+        return userStorage.getCommonFriends(userId, otherId);
+    }
 
-            for (long userFriendsId : userFriends) {
-                commonFriends.add(userStorage.getUserById(userFriendsId));
+    /**
+     * Лента пользователя: фильмы, которые лайкнули его друзья, по убыванию числа таких друзей,
+     * без фильмов, которые пользователь лайкнул сам
+     */
+    public List<Film> getFeed(long userId, int count) {
+        try {
+            if (validator.validationId(userId)) {
+                throw new NotFoundException("id пользователя должен быть больше 0");
             }
-        } catch (NotFoundException e) {
+            if (validator.validationPage(0, count)) {
+                throw new ValidationException("Количество фильмов должно быть от 1 до 1000");
+            }
+        } catch (NotFoundException | ValidationException e) {
             log.warn(e.getMessage());
             throw e;
         }
-        return commonFriends;
+        userStorage.getUserById(userId);
+        return filmStorage.getFriendsFeed(userId, count);
     }
 
     /**
@@ -2,6 +2,7 @@ package ru.yandex.practicum.filmorate.service;
 
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.time.LocalDate;
@@ -68,6 +69,33 @@ public class Validator {
         return film.getDuration() <= 0;
     }
 
+    /**
+     * Проверка: курсор страницы не может быть отрицательным, размер страницы — от 1 до 1000
+     */
+    protected boolean validationPage(long afterId, int limit) {
+        return afterId < 0 || limit <= 0 || limit > 1000;
+    }
+
+    /**
+     * Проверка: id жанра и рейтинга больше 0, годы от 1895 до 9999 и начальный не больше конечного,
+     * продолжительность не меньше 0
+     */
+    protected boolean validationFilmFilter(FilmFilter filter) {
+        return filter.getGenreId() != null && filter.getGenreId() <= 0
+                || filter.getMpaId() != null && filter.getMpaId() <= 0
+                || validationFilterYear(filter.getYearFrom()) || validationFilterYear(filter.getYearTo())
+                || filter.getYearFrom() != null && filter.getYearTo() != null
+                && filter.getYearFrom() > filter.getYearTo()
+                || filter.getMinDuration() != null && filter.getMinDuration() < 0;
+    }
+
+    /**
+     * Проверка: год фильтра — от года первого фильма до последнего четырёхзначного года
+     */
+    private boolean validationFilterYear(Integer year) {
+        return year != null && (year < 1895 || year > 9999);
+    }
+
     /**
      * Проверка: id не может быть меньше или равен нулю
      */
@@ -0,0 +1,223 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Кэш пользователей по id поверх хранилища пользователей
+ * <p>
+ * Хранит не больше maxSize пользователей, вытесняя давно не запрошенных (LRU). Запись идёт сразу
+ * в хранилище, после чего изменённый пользователь удаляется из кэша и при следующем чтении загружается заново.
+ * Наружу отдаются копии объектов, чтобы изменения у вызывающего не попадали в кэш.
+ * <p>
+ * Чтение, начатое до записи, могло получить из хранилища прежнюю версию пользователя. Поэтому каждое
+ * удаление из кэша увеличивает счётчик, и загруженный пользователь кладётся в кэш, только если с начала
+ * чтения удалений не было.
+ */
+@Slf4j
+@Component
+public class CachedUserStorage implements UserStorage {
+    private final UserStorage userStorage;
+    private final Map<Long, User> cache;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private long invalidations;
+
+    public CachedUserStorage(@Qualifier("userDbStorage") UserStorage userStorage,
+                             @Value("${filmorate.user-cache.max-size:10000}") int maxSize) {
+        this.userStorage = userStorage;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, User> eldest) {
+                if (size() > maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public List<User> getUserAll() {
+        return userStorage.getUserAll();
+    }
+
+    @Override
+    public List<User> getUserPage(long afterId, int limit) {
+        return userStorage.getUserPage(afterId, limit);
+    }
+
+    @Override
+    public void streamUserAll(Consumer<User> action) {
+        userStorage.streamUserAll(action);
+    }
+
+    @Override
+    public User getUserById(long userId) {
+        User cached = get(userId);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return copy(cached);
+        }
+        misses.incrementAndGet();
+
+        long version = version();
+        User user = userStorage.getUserById(userId);
+        put(user, version);
+        return copy(user);
+    }
+
+    /**
+     * Получение пользователей по списку id: найденные в кэше берутся из него,
+     * остальные загружаются из хранилища одним запросом
+     */
+    @Override
+    public List<User> getUsersByIds(Collection<Long> userIds) {
+        Map<Long, User> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+
+        for (long userId : userIds) {
+            User cached = get(userId);
+            if (cached != null) {
+                found.put(userId, cached);
+            } else {
+                missing.add(userId);
+            }
+        }
+        hits.addAndGet(found.size());
+        misses.addAndGet(missing.size());
+
+        if (!missing.isEmpty()) {
+            long version = version();
+            for (User user : userStorage.getUsersByIds(missing)) {
+                put(user, version);
+                found.put(user.getId(), user);
+            }
+        }
+        return userIds.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .map(this::copy)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public User add(User user) {
+        return userStorage.add(user);
+    }
+
+    @Override
+    public void addAll(List<User> users, int batchSize) {
+        userStorage.addAll(users, batchSize);
+    }
+
+    @Override
+    public User update(User user) {
+        User updated = userStorage.update(user);
+        invalidate(user.getId());
+
+        return updated;
+    }
+
+    @Override
+    public boolean delete(User user) {
+        boolean deleted = userStorage.delete(user);
+        invalidate(user.getId());
+
+        return deleted;
+    }
+
+    @Override
+    public List<User> getFriendList(long id) {
+        return userStorage.getFriendList(id);
+    }
+
+    @Override
+    public boolean addFriend(long id, long friendId) {
+        return userStorage.addFriend(id, friendId);
+    }
+
+    @Override
+    public boolean deleteFriend(long id, long friendId) {
+        return userStorage.deleteFriend(id, friendId);
+    }
+
+    @Override
+    public void addFriends(List<Friendship> friendships, int batchSize) {
+        userStorage.addFriends(friendships, batchSize);
+    }
+
+    @Override
+    public Set<Long> getFriendsIdListByUserId(long id) {
+        return userStorage.getFriendsIdListByUserId(id);
+    }
+
+    @Override
+    public List<User> getCommonFriends(long id, long otherId) {
+        return userStorage.getCommonFriends(id, otherId);
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public void invalidate(long userId) {
+        synchronized (cache) {
+            invalidations++;
+            cache.remove(userId);
+        }
+    }
+
+    private User get(long userId) {
+        synchronized (cache) {
+            return cache.get(userId);
+        }
+    }
+
+    private long version() {
+        synchronized (cache) {
+            return invalidations;
+        }
+    }
+
+    /**
+     * Кэширование загруженного пользователя, если с начала загрузки кэш не очищался
+     */
+    private void put(User user, long version) {
+        synchronized (cache) {
+            if (invalidations == version) {
+                cache.put(user.getId(), user);
+            }
+        }
+    }
+
+    private User copy(User user) {
+        return new User(user.getId(), user.getEmail(), user.getLogin(), user.getName(), user.getBirthday());
+    }
+}
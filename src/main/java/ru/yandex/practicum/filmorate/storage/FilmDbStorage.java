@@ -2,16 +2,44 @@ package ru.yandex.practicum.filmorate.storage;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.core.PreparedStatementCreatorFactory;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmCategories;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.FilmLike;
 import ru.yandex.practicum.filmorate.model.Genres;
 import ru.yandex.practicum.filmorate.model.Mpa;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Реализация интерфейса для хранения фильмов
@@ -22,9 +50,28 @@ import java.util.List;
 public class FilmDbStorage implements FilmStorage {
     private static final String FIND_ALL_FILMS = "SELECT * " +
             "FROM films";
+    private static final String FIND_FILMS_PAGE = "SELECT * " +
+            "FROM films " +
+            "WHERE film_id > ? " +
+            "ORDER BY film_id " +
+            "LIMIT ?";
+    private static final String FIND_ALL_FILMS_WITH_GENRES = "SELECT f.*, " +
+            "fg.genre_id " +
+            "FROM films f " +
+            "LEFT JOIN film_genre fg ON fg.film_id = f.film_id " +
+            "ORDER BY f.film_id, fg.genre_id";
     private static final String FIND_FILM_BY_ID = "SELECT * " +
             "FROM films " +
             "WHERE film_id = ?";
+    private static final String FIND_FILMS_BY_IDS = "SELECT * " +
+            "FROM films " +
+            "WHERE film_id = ANY(?)";
+    private static final String INSERT_FILM = "INSERT INTO films " +
+            "(name, rate, mpa_id, description, release_date, duration) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+    private static final PreparedStatementCreatorFactory INSERT_FILM_RETURNING_ID = InsertStatements.returningId(
+            INSERT_FILM, "film_id",
+            Types.VARCHAR, Types.INTEGER, Types.INTEGER, Types.VARCHAR, Types.DATE, Types.INTEGER);
     private static final String UPDATE_FILM = "UPDATE films SET " +
             "name = ?, rate = ?, mpa_id = ?, description = ?, release_date = ?, duration = ? " +
             "WHERE film_id = ?";
@@ -35,33 +82,199 @@ public class FilmDbStorage implements FilmStorage {
     private static String DELETE_FILM_LIKE = "DELETE FROM film_like " +
             "WHERE film_id = ? " +
             "AND user_id = ?";
-    private static final String FIND_POPULAR_FILMS_WITH_LIKES = "SELECT f.* " +
+    private static final String INSERT_FILM_LIKE_IF_ABSENT = "INSERT INTO film_like (film_id, user_id) " +
+            "SELECT f.film_id, " +
+            "u.id " +
             "FROM films f " +
-            "LEFT JOIN film_like fl ON fl.film_id = f.film_id " +
-            "GROUP BY f.film_id " +
-            "ORDER BY COUNT(fl.user_id) DESC " +
+            "JOIN users u ON u.id = ? " +
+            "WHERE f.film_id = ? " +
+            "AND NOT EXISTS (SELECT 1 FROM film_like fl WHERE fl.film_id = f.film_id AND fl.user_id = u.id)";
+    private static final String INCREMENT_LIKES_COUNT = "UPDATE films SET " +
+            "likes_count = likes_count + 1 " +
+            "WHERE film_id = ?";
+    private static final String ADD_LIKES_COUNT = "UPDATE films SET " +
+            "likes_count = likes_count + ? " +
+            "WHERE film_id = ?";
+    private static final String DECREMENT_LIKES_COUNT = "UPDATE films SET " +
+            "likes_count = likes_count - 1 " +
+            "WHERE film_id = ?";
+    private static final String FIND_POPULAR_FILMS_WITH_LIKES = "SELECT * " +
+            "FROM films " +
+            "ORDER BY likes_count DESC, film_id " +
             "LIMIT ?";
+    private static final String FIND_FRIENDS_FEED = "SELECT f.* " +
+            "FROM (SELECT fl.film_id, " +
+            "COUNT(*) AS friends_count " +
+            "FROM friendship fs " +
+            "JOIN film_like fl ON fl.user_id = fs.user2_id " +
+            "WHERE fs.user1_id = ? " +
+            "AND fl.film_id NOT IN (SELECT own.film_id FROM film_like own WHERE own.user_id = ?) " +
+            "GROUP BY fl.film_id " +
+            "ORDER BY friends_count DESC, fl.film_id " +
+            "LIMIT ?) feed " +
+            "JOIN films f ON f.film_id = feed.film_id " +
+            "ORDER BY feed.friends_count DESC, feed.film_id";
+    private static final String ADD_GENRE_LIKES_COUNT = "UPDATE film_genre SET " +
+            "likes_count = likes_count + ? " +
+            "WHERE film_id = ?";
+    private static final String FIND_LIKES_COUNT_DRIFT = "SELECT f.film_id, " +
+            "f.likes_count, " +
+            "COUNT(fl.user_id) AS actual_count " +
+            "FROM films f " +
+            "LEFT JOIN film_like fl ON fl.film_id = f.film_id " +
+            "GROUP BY f.film_id, f.likes_count " +
+            "HAVING f.likes_count <> COUNT(fl.user_id)";
+    private static final String FIND_GENRE_LIKES_COUNT_DRIFT = "SELECT fg.film_id, " +
+            "fg.genre_id, " +
+            "fg.likes_count, " +
+            "COUNT(fl.user_id) AS actual_count " +
+            "FROM film_genre fg " +
+            "LEFT JOIN film_like fl ON fl.film_id = fg.film_id " +
+            "GROUP BY fg.film_id, fg.genre_id, fg.likes_count " +
+            "HAVING fg.likes_count <> COUNT(fl.user_id)";
+    private static final String FIND_LIKES_COUNTS = "SELECT film_id, " +
+            "likes_count " +
+            "FROM films";
+    private static final String COUNT_LIKES_BY_FILM = "SELECT f.film_id, " +
+            "COUNT(fl.user_id) AS likes " +
+            "FROM films f " +
+            "LEFT JOIN film_like fl ON fl.film_id = f.film_id " +
+            "GROUP BY f.film_id";
+    private static final String FIND_LIKED_FILM_IDS = "SELECT film_id " +
+            "FROM film_like " +
+            "WHERE user_id = ?";
+    private static final String FIND_LIKES_SINCE = "SELECT film_id, " +
+            "created_at " +
+            "FROM film_like " +
+            "WHERE created_at >= ?";
+    private static final String FIND_CATEGORIES = "SELECT f.film_id, " +
+            "f.mpa_id, " +
+            "fg.genre_id " +
+            "FROM films f " +
+            "LEFT JOIN film_genre fg ON fg.film_id = f.film_id";
+    private static final String UPDATE_LIKES_COUNT = "UPDATE films SET " +
+            "likes_count = ? " +
+            "WHERE film_id = ?";
+    private static final String UPDATE_GENRE_LIKES_COUNT = "UPDATE film_genre SET " +
+            "likes_count = ? " +
+            "WHERE film_id = ? " +
+            "AND genre_id = ?";
     private static String INSERT_FILM_GENRE = "INSERT INTO film_genre (film_id, genre_id) " +
             "VALUES(?, ?)";
-    private static final String FIND_MPA_BY_ID = "SELECT * " +
-            "FROM mpa " +
-            "WHERE mpa_id = ?";
-    private static final String FIND_GENRES_BY_FILM_ID = "SELECT fg.genre_id, " +
-            "g.name " +
-            "FROM film_genre fg " +
-            "LEFT JOIN genre g ON fg.genre_id = g.genre_id " +
-            "WHERE fg.film_id = ?";
-    private static final String DELETE_GENRES_BY_FILM_ID = "DELETE FROM film_genre " +
+    private static final String INSERT_FILM_GENRE_WITH_LIKES_COUNT = "INSERT INTO film_genre " +
+            "(film_id, genre_id, likes_count) " +
+            "SELECT film_id, " +
+            "?, " +
+            "likes_count " +
+            "FROM films " +
             "WHERE film_id = ?";
+    private static final String FROM_FILMS = "FROM films f ";
+    private static final String FROM_MPA_FILMS = "FROM films f USE INDEX (films_mpa_likes_count_idx) ";
+    private static final String FROM_GENRE_FILMS = "FROM film_genre fg " +
+            "JOIN films f ON f.film_id = fg.film_id ";
+    private static final String FIND_GENRES_BY_FILM_IDS = "SELECT film_id, " +
+            "genre_id " +
+            "FROM film_genre " +
+            "WHERE film_id = ANY(?) " +
+            "ORDER BY film_id, genre_id";
+    private static final String FIND_GENRE_IDS_BY_FILM_ID = "SELECT genre_id " +
+            "FROM film_genre " +
+            "WHERE film_id = ?";
+    private static final String DELETE_FILM_GENRE = "DELETE FROM film_genre " +
+            "WHERE film_id = ? " +
+            "AND genre_id = ?";
+
+    private static final int STREAM_FETCH_SIZE = 500;
+    /**
+     * Ограничение построчной выгрузки: как spring.mvc.async.request-timeout, а не общий query-timeout,
+     * рассчитанный на короткие запросы
+     */
+    static final int STREAM_TIMEOUT_SECONDS = 600;
 
     private final JdbcTemplate jdbcTemplate;
+    private final ReferenceDataCache referenceDataCache;
 
     /**
      * Получение списка фильмов
      */
     @Override
     public List<Film> getFilmAll() {
-        return jdbcTemplate.query(FIND_ALL_FILMS, this::mapRowToFilm);
+        return hydrate(jdbcTemplate.query(FIND_ALL_FILMS, this::mapRowToFilm));
+    }
+
+    /**
+     * Получение страницы фильмов с id больше afterId
+     */
+    @Override
+    public List<Film> getFilmPage(long afterId, int limit) {
+        return hydrate(jdbcTemplate.query(FIND_FILMS_PAGE, this::mapRowToFilm, afterId, limit));
+    }
+
+    /**
+     * Получение страницы фильмов с id больше afterId, подходящих под фильтр, одним запросом
+     * <p>
+     * film_genre соединяется, только если задан жанр: тогда выборка идёт по индексу (genre_id, film_id),
+     * и курсор страницы берётся из film_genre.
+     */
+    @Override
+    public List<Film> getFilmPage(FilmFilter filter, long afterId, int limit) {
+        String filmId = filter.getGenreId() == null ? "f.film_id" : "fg.film_id";
+        List<String> conditions = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        conditions.add(filmId + " > ?");
+        args.add(afterId);
+        String from = filter(filter, conditions, args);
+        args.add(limit);
+
+        return hydrate(jdbcTemplate.query("SELECT f.* " + from + where(conditions) +
+                "ORDER BY " + filmId + " LIMIT ?", this::mapRowToFilm, args.toArray()));
+    }
+
+    /**
+     * Получение популярных фильмов, подходящих под фильтр, одним запросом
+     * <p>
+     * С жанром порядок берётся из копии счётчика лайков в film_genre и читается по индексу
+     * (genre_id, likes_count DESC, film_id) до первых count подходящих строк, с рейтингом — по индексу
+     * (mpa_id, likes_count DESC, film_id).
+     * <p>
+     * H2 читает строки в порядке индекса без сортировки, только если ORDER BY начинается с первого столбца
+     * индекса, поэтому порядок начинается с genre_id или mpa_id — при равенстве в условии результат тот же.
+     * Для рейтинга индекс указан явно: внешнему ключу на mpa нужен индекс ровно по mpa_id, и по стоимости
+     * H2 выбирает его, а затем сортирует все фильмы рейтинга.
+     */
+    @Override
+    public List<Film> getPopularFilms(FilmFilter filter, int count) {
+        String order = "f.likes_count DESC, f.film_id";
+        List<String> conditions = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        String from = filter(filter, conditions, args);
+        if (filter.getGenreId() != null) {
+            order = "fg.genre_id, fg.likes_count DESC, fg.film_id";
+        } else if (filter.getMpaId() != null) {
+            from = FROM_MPA_FILMS;
+            order = "f.mpa_id, " + order;
+        }
+        args.add(count);
+
+        return hydrate(jdbcTemplate.query("SELECT f.* " + from + where(conditions) +
+                "ORDER BY " + order + " LIMIT ?", this::mapRowToFilm, args.toArray()));
+    }
+
+    /**
+     * Построчная выгрузка всех фильмов без загрузки таблицы в память. Тайм-аут транзакции заменяет
+     * общий query-timeout, иначе выгрузка большой таблицы обрывалась бы через несколько секунд
+     */
+    @Override
+    @Transactional(readOnly = true, timeout = STREAM_TIMEOUT_SECONDS)
+    public void streamFilmAll(Consumer<Film> action) {
+        FilmGroupingHandler handler = new FilmGroupingHandler(action);
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(FIND_ALL_FILMS_WITH_GENRES);
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            return statement;
+        }, handler);
+        handler.finish();
     }
 
     /**
@@ -70,6 +283,7 @@ public class FilmDbStorage implements FilmStorage {
     @Override
     public Film getFilmById(long filmId) {
         Film film = jdbcTemplate.queryForObject(FIND_FILM_BY_ID, this::mapRowToFilm, filmId);
+        hydrate(List.of(film));
 
         if (film.getGenres().size() == 0) {
             film.setGenres(null);
@@ -78,25 +292,90 @@ public class FilmDbStorage implements FilmStorage {
         return film;
     }
 
+    /**
+     * Получение фильмов по списку id в порядке этого списка
+     */
+    @Override
+    public List<Film> getFilmsByIds(List<Long> filmIds) {
+        if (filmIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Film> filmsById = new HashMap<>();
+        hydrate(jdbcTemplate.query(FIND_FILMS_BY_IDS, this::mapRowToFilm, (Object) filmIds.toArray(new Long[0])))
+                .forEach(film -> filmsById.put(film.getId(), film));
+
+        return filmIds.stream()
+                .map(filmsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
     /**
      * Добавление фильма
      */
     @Override
+    @Transactional
     public Film add(Film film) {
-        SimpleJdbcInsert simpleJdbcInsert = new SimpleJdbcInsert(jdbcTemplate)
-                .withTableName("films")
-                .usingGeneratedKeyColumns("film_id");
-        film.setId(simpleJdbcInsert.executeAndReturnKey(film.toMap()).longValue());
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(INSERT_FILM_RETURNING_ID.newPreparedStatementCreator(Arrays.asList(film.getName(),
+                film.getRate(), film.getMpa().getId(), film.getDescription(), film.getReleaseDate(),
+                film.getDuration())), keyHolder);
+        film.setId(Objects.requireNonNull(keyHolder.getKey()).longValue());
+        updateGenres(film.getId(), List.of(), genreIds(film));
 
-        return updateGenres(film);
+        return withReferenceNames(film);
+    }
+
+    /**
+     * Пакетное добавление фильмов: id присваиваются объектам из сгенерированных ключей
+     */
+    @Override
+    public void addAll(List<Film> films, int batchSize) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_FILM, new String[]{"film_id"})) {
+                for (int from = 0; from < films.size(); from += batchSize) {
+                    List<Film> batch = films.subList(from, Math.min(from + batchSize, films.size()));
+                    for (Film film : batch) {
+                        statement.setString(1, film.getName());
+                        statement.setInt(2, film.getRate());
+                        statement.setInt(3, film.getMpa().getId());
+                        statement.setString(4, film.getDescription());
+                        statement.setObject(5, film.getReleaseDate());
+                        statement.setInt(6, film.getDuration());
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                    try (ResultSet keys = statement.getGeneratedKeys()) {
+                        for (Film film : batch) {
+                            keys.next();
+                            film.setId(keys.getLong(1));
+                        }
+                    }
+                }
+            }
+            return null;
+        });
+
+        List<Object[]> genres = new ArrayList<>();
+        for (Film film : films) {
+            genreIds(film).forEach(genreId -> genres.add(new Object[]{film.getId(), genreId}));
+        }
+        if (!genres.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_FILM_GENRE, genres, batchSize,
+                    (statement, genre) -> {
+                        statement.setLong(1, (Long) genre[0]);
+                        statement.setInt(2, (Integer) genre[1]);
+                    });
+        }
     }
 
     /**
      * Обновление данных фильма
      */
     @Override
+    @Transactional
     public Film update(Film film) {
-        jdbcTemplate.update(UPDATE_FILM
+        int updated = jdbcTemplate.update(UPDATE_FILM
                 , film.getName()
                 , film.getRate()
                 , film.getMpa().getId()
@@ -104,10 +383,14 @@ public class FilmDbStorage implements FilmStorage {
                 , film.getReleaseDate()
                 , film.getDuration()
                 , film.getId());
+        if (updated == 0) {
+            throw new NotFoundException(String.format("Фильм с id %d не найден", film.getId()));
+        }
 
-        jdbcTemplate.update(DELETE_GENRES_BY_FILM_ID, film.getId());
+        List<Integer> existing = jdbcTemplate.queryForList(FIND_GENRE_IDS_BY_FILM_ID, Integer.class, film.getId());
+        updateGenres(film.getId(), existing, genreIds(film));
 
-        return updateGenres(film);
+        return withReferenceNames(film);
     }
 
     /**
@@ -125,23 +408,223 @@ public class FilmDbStorage implements FilmStorage {
     public List<Film> getPopularFilms(int count) {
         List<Film> films = jdbcTemplate.query(FIND_POPULAR_FILMS_WITH_LIKES, this::mapRowToFilm, count);
 
-        return films;
+        return hydrate(films);
+    }
+
+    /**
+     * Фильмы, которые лайкнули друзья пользователя, по убыванию числа таких друзей, без фильмов, которые
+     * пользователь лайкнул сам, одним запросом
+     * <p>
+     * Друзья читаются по первичному ключу friendship, их лайки — по индексу film_like_user_id_idx,
+     * лайки самого пользователя выбираются один раз. Фильмы читаются только для первых count результатов.
+     */
+    @Override
+    public List<Film> getFriendsFeed(long userId, int count) {
+        List<Film> films = jdbcTemplate.query(FIND_FRIENDS_FEED, this::mapRowToFilm, userId, userId, count);
+
+        return hydrate(films);
     }
 
     /**
-     * Добавление лайка фильму
+     * Добавление лайка фильму вместе с увеличением счётчика лайков
      */
     @Override
-    public boolean addLike(long userId, long filmId) {
-        return (jdbcTemplate.update(INSERT_FILM_LIKE, userId, filmId)) > 0;
+    @Transactional
+    public boolean addLike(long filmId, long userId) {
+        if (jdbcTemplate.update(INSERT_FILM_LIKE, filmId, userId) == 0) {
+            return false;
+        }
+        jdbcTemplate.update(INCREMENT_LIKES_COUNT, filmId);
+        jdbcTemplate.update(ADD_GENRE_LIKES_COUNT, 1, filmId);
+
+        return true;
     }
 
     /**
-     * Удалние лайка у фильма
+     * Удалние лайка у фильма вместе с уменьшением счётчика лайков
      */
     @Override
+    @Transactional
     public boolean deleteLike(long filmId, long userId) {
-        return (jdbcTemplate.update(DELETE_FILM_LIKE, filmId, userId)) > 0;
+        if (jdbcTemplate.update(DELETE_FILM_LIKE, filmId, userId) == 0) {
+            return false;
+        }
+        jdbcTemplate.update(DECREMENT_LIKES_COUNT, filmId);
+        jdbcTemplate.update(ADD_GENRE_LIKES_COUNT, -1, filmId);
+
+        return true;
+    }
+
+    /**
+     * Количество лайков каждого фильма из счётчика films.likes_count
+     * <p>
+     * Счётчик меняется в одной транзакции с film_like и сверяется с ней {@link #reconcileLikesCount()},
+     * поэтому агрегировать film_like не нужно: при старте читается только таблица фильмов.
+     */
+    @Override
+    public Map<Long, Long> getLikesCountByFilm() {
+        Map<Long, Long> likesByFilm = new HashMap<>();
+        jdbcTemplate.query(FIND_LIKES_COUNTS, rs -> {
+            likesByFilm.put(rs.getLong("film_id"), rs.getLong("likes_count"));
+        });
+
+        return likesByFilm;
+    }
+
+    /**
+     * Подсчёт лайков каждого фильма по таблице film_like, без счётчика films.likes_count
+     */
+    @Override
+    public Map<Long, Long> countLikesByFilm() {
+        Map<Long, Long> likesByFilm = new HashMap<>();
+        jdbcTemplate.query(COUNT_LIKES_BY_FILM, rs -> {
+            likesByFilm.put(rs.getLong("film_id"), rs.getLong("likes"));
+        });
+
+        return likesByFilm;
+    }
+
+    /**
+     * Построчная выгрузка лайков, поставленных не раньше since, по индексу film_like_created_at_idx
+     */
+    @Override
+    @Transactional(readOnly = true, timeout = STREAM_TIMEOUT_SECONDS)
+    public void streamLikesSince(Instant since, BiConsumer<Long, Instant> action) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(FIND_LIKES_SINCE);
+            statement.setObject(1, OffsetDateTime.ofInstant(since, ZoneOffset.UTC));
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) rs -> action.accept(rs.getLong("film_id"),
+                rs.getObject("created_at", OffsetDateTime.class).toInstant()));
+    }
+
+    /**
+     * Рейтинг mpa и жанры каждого фильма одним запросом
+     */
+    @Override
+    public Map<Long, FilmCategories> getCategoriesByFilm() {
+        Map<Long, FilmCategories> categoriesByFilm = new HashMap<>();
+        jdbcTemplate.query(FIND_CATEGORIES, rs -> {
+            FilmCategories categories = categoriesByFilm.computeIfAbsent(rs.getLong("film_id"),
+                    filmId -> new FilmCategories());
+            categories.setMpaId(rs.getInt("mpa_id"));
+            int genreId = rs.getInt("genre_id");
+            if (!rs.wasNull()) {
+                categories.getGenreIds().add(genreId);
+            }
+        });
+
+        return categoriesByFilm;
+    }
+
+    /**
+     * Id фильмов, которые лайкнул пользователь, по индексу film_like_user_id_idx
+     */
+    @Override
+    public List<Long> getLikedFilmIds(long userId) {
+        return jdbcTemplate.queryForList(FIND_LIKED_FILM_IDS, Long.class, userId);
+    }
+
+    /**
+     * Пакетное добавление лайков с увеличением счётчиков лайков одним обновлением на фильм
+     */
+    @Override
+    public void addLikes(List<FilmLike> likes, int batchSize) {
+        jdbcTemplate.batchUpdate(INSERT_FILM_LIKE, likes, batchSize, (statement, like) -> {
+            statement.setLong(1, like.getFilmId());
+            statement.setLong(2, like.getUserId());
+        });
+
+        Map<Long, Long> likesByFilm = likes.stream()
+                .collect(Collectors.groupingBy(FilmLike::getFilmId, Collectors.counting()));
+        for (String sql : List.of(ADD_LIKES_COUNT, ADD_GENRE_LIKES_COUNT)) {
+            jdbcTemplate.batchUpdate(sql, likesByFilm.entrySet(), batchSize, (statement, film) -> {
+                statement.setLong(1, film.getValue());
+                statement.setLong(2, film.getKey());
+            });
+        }
+    }
+
+    /**
+     * Запись накопленных лайков и их отмен в одной транзакции: лайк добавляется, только если его ещё нет,
+     * а фильм и пользователь существуют, поэтому повтор или устаревшая запись не роняют весь пакет.
+     * Счётчики лайков меняются одним обновлением на фильм на фактическое число изменённых строк.
+     *
+     * @return на сколько фактически изменилось количество лайков каждого затронутого фильма
+     */
+    @Override
+    @Transactional
+    public Map<Long, Long> writeLikes(Collection<FilmLike> liked, Collection<FilmLike> unliked) {
+        Map<Long, Long> delta = new HashMap<>();
+        writeLikeBatch(INSERT_FILM_LIKE_IF_ABSENT, liked, like -> new Object[]{like.getUserId(), like.getFilmId()},
+                1, delta);
+        writeLikeBatch(DELETE_FILM_LIKE, unliked, like -> new Object[]{like.getFilmId(), like.getUserId()},
+                -1, delta);
+
+        List<Object[]> counts = delta.entrySet().stream()
+                .filter(film -> film.getValue() != 0)
+                .map(film -> new Object[]{film.getValue(), film.getKey()})
+                .collect(Collectors.toList());
+        if (!counts.isEmpty()) {
+            jdbcTemplate.batchUpdate(ADD_LIKES_COUNT, counts);
+            jdbcTemplate.batchUpdate(ADD_GENRE_LIKES_COUNT, counts);
+        }
+        return delta;
+    }
+
+    /**
+     * Пакетная запись лайков с подсчётом фактически изменённых строк по фильмам
+     */
+    private void writeLikeBatch(String sql, Collection<FilmLike> likes, Function<FilmLike, Object[]> arguments,
+                                long sign, Map<Long, Long> delta) {
+        if (likes.isEmpty()) {
+            return;
+        }
+        int[] updated = jdbcTemplate.batchUpdate(sql, likes.stream()
+                .map(arguments)
+                .collect(Collectors.toList()));
+
+        int i = 0;
+        for (FilmLike like : likes) {
+            if (updated[i++] > 0) {
+                delta.merge(like.getFilmId(), sign, Long::sum);
+            }
+        }
+    }
+
+    /**
+     * Пересчёт счётчиков лайков по таблице film_like
+     * <p>
+     * Копия счётчика в film_genre сверяется с film_like сама по себе, а не только у фильмов,
+     * чей films.likes_count разошёлся: копии могут разойтись и независимо друг от друга.
+     *
+     * @return количество фильмов, у которых хотя бы один счётчик расходился с фактическим числом лайков
+     */
+    @Transactional
+    public int reconcileLikesCount() {
+        Set<Long> drifted = new HashSet<>();
+        List<Object[]> drift = jdbcTemplate.query(FIND_LIKES_COUNT_DRIFT, (rs, rowNum) -> {
+            log.warn("Счётчик лайков фильма {} расходится с film_like: {} вместо {}",
+                    rs.getLong("film_id"), rs.getLong("likes_count"), rs.getLong("actual_count"));
+            drifted.add(rs.getLong("film_id"));
+            return new Object[]{rs.getLong("actual_count"), rs.getLong("film_id")};
+        });
+        List<Object[]> genreDrift = jdbcTemplate.query(FIND_GENRE_LIKES_COUNT_DRIFT, (rs, rowNum) -> {
+            log.warn("Счётчик лайков фильма {} в жанре {} расходится с film_like: {} вместо {}",
+                    rs.getLong("film_id"), rs.getInt("genre_id"), rs.getLong("likes_count"),
+                    rs.getLong("actual_count"));
+            drifted.add(rs.getLong("film_id"));
+            return new Object[]{rs.getLong("actual_count"), rs.getLong("film_id"), rs.getInt("genre_id")};
+        });
+
+        if (!drift.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_LIKES_COUNT, drift);
+        }
+        if (!genreDrift.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_GENRE_LIKES_COUNT, genreDrift);
+        }
+        return drifted.size();
     }
 
     private Film mapRowToFilm(ResultSet resultSet, int rowNum) throws SQLException {
@@ -149,52 +632,152 @@ public class FilmDbStorage implements FilmStorage {
                 .id(resultSet.getLong("film_id"))
                 .name(resultSet.getString("name"))
                 .rate(resultSet.getInt("rate"))
-                .mpa(getSetMpa(resultSet))
+                .mpa(mapMpa(resultSet.getInt("mpa_id")))
                 .description(resultSet.getString("description"))
                 .releaseDate(resultSet.getDate("release_date").toLocalDate())
                 .duration(resultSet.getInt("duration"))
-                .genres(getSetGenres(resultSet))
+                .genres(new ArrayList<>())
                 .build();
     }
 
-    private Mpa getSetMpa(ResultSet rs) throws SQLException {
-        Mpa mpa = new Mpa();
-        mpa.setId(rs.getInt("mpa_id"));
+    /**
+     * Заполнение жанров для страницы фильмов одним запросом вместо запроса на каждый фильм,
+     * названия жанров берутся из справочника в памяти
+     */
+    private List<Film> hydrate(List<Film> films) {
+        if (films.isEmpty()) {
+            return films;
+        }
+        Map<Long, Film> filmsById = new HashMap<>();
+        for (Film film : films) {
+            filmsById.put(film.getId(), film);
+        }
+
+        jdbcTemplate.query(FIND_GENRES_BY_FILM_IDS, rs -> {
+            filmsById.get(rs.getLong("film_id")).getGenres().add(mapGenre(rs.getInt("genre_id")));
+        }, (Object) filmsById.keySet().toArray(new Long[0]));
+
+        return films;
+    }
+
+    /**
+     * Запись изменений жанров фильма двумя пакетными запросами: удаляются только убранные жанры,
+     * добавляются только новые, с текущим счётчиком лайков фильма
+     */
+    private void updateGenres(long filmId, Collection<Integer> existing, Collection<Integer> requested) {
+        List<Object[]> toDelete = existing.stream()
+                .filter(genreId -> !requested.contains(genreId))
+                .map(genreId -> new Object[]{filmId, genreId})
+                .collect(Collectors.toList());
+        List<Object[]> toInsert = requested.stream()
+                .filter(genreId -> !existing.contains(genreId))
+                .map(genreId -> new Object[]{genreId, filmId})
+                .collect(Collectors.toList());
 
-        mpa.setName(jdbcTemplate.queryForObject(FIND_MPA_BY_ID, this::mapRowToMpa, mpa.getId()).getName());
-        return mpa;
+        if (!toDelete.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_FILM_GENRE, toDelete);
+        }
+        if (!toInsert.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_FILM_GENRE_WITH_LIKES_COUNT, toInsert);
+        }
     }
 
-    private Film updateGenres(Film film) {
-        if (film.getGenres() != null) {
-            if (film.getGenres().size() == 0) {
-                return film;
-            }
-            film.getGenres().stream()
-                    .map(Genres::getId)
-                    .distinct()
-                    .forEach(id -> jdbcTemplate.update(INSERT_FILM_GENRE, film.getId(), id));
+    /**
+     * Источник строк и условия фильтра: film_genre соединяется, только если задан жанр.
+     * Годы сравниваются с release_date диапазоном дат, чтобы условие читалось по индексу
+     */
+    private String filter(FilmFilter filter, List<String> conditions, List<Object> args) {
+        if (filter.getGenreId() != null) {
+            conditions.add("fg.genre_id = ?");
+            args.add(filter.getGenreId());
+        }
+        if (filter.getMpaId() != null) {
+            conditions.add("f.mpa_id = ?");
+            args.add(filter.getMpaId());
+        }
+        if (filter.getYearFrom() != null) {
+            conditions.add("f.release_date >= ?");
+            args.add(LocalDate.of(filter.getYearFrom(), 1, 1));
+        }
+        if (filter.getYearTo() != null) {
+            conditions.add("f.release_date < ?");
+            args.add(LocalDate.of(filter.getYearTo() + 1, 1, 1));
         }
-        return getFilmById(film.getId());
+        if (filter.getMinDuration() != null) {
+            conditions.add("f.duration >= ?");
+            args.add(filter.getMinDuration());
+        }
+        return filter.getGenreId() == null ? FROM_FILMS : FROM_GENRE_FILMS;
     }
 
-    private List<Genres> getSetGenres(ResultSet rs) throws SQLException {
-        long filmId = rs.getLong("film_id");
+    private static String where(List<String> conditions) {
+        return conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions) + " ";
+    }
 
-        return jdbcTemplate.query(FIND_GENRES_BY_FILM_ID, this::mapRowToGenre, filmId);
+    private Set<Integer> genreIds(Film film) {
+        if (film.getGenres() == null) {
+            return new TreeSet<>();
+        }
+        return film.getGenres().stream()
+                .map(Genres::getId)
+                .collect(Collectors.toCollection(TreeSet::new));
     }
 
-    private Mpa mapRowToMpa(ResultSet resultSet, int rowNum) throws SQLException {
-        return Mpa.builder()
-                .id(resultSet.getInt("mpa_id"))
-                .name(resultSet.getString("name"))
-                .build();
+    /**
+     * Заполнение названий mpa и жанров сохранённого фильма из справочника без повторного чтения фильма
+     */
+    private Film withReferenceNames(Film film) {
+        film.setMpa(mapMpa(film.getMpa().getId()));
+        if (film.getGenres() != null) {
+            film.setGenres(genreIds(film).stream()
+                    .map(this::mapGenre)
+                    .collect(Collectors.toList()));
+        }
+        return film;
+    }
+
+    private Mpa mapMpa(int mpaId) {
+        return new Mpa(mpaId, referenceDataCache.getMpaById(mpaId).getName());
     }
 
-    private Genres mapRowToGenre(ResultSet resultSet, int rowNum) throws SQLException {
+    private Genres mapGenre(int genreId) {
         return Genres.builder()
-                .id(resultSet.getInt("genre_id"))
-                .name(resultSet.getString("name"))
+                .id(genreId)
+                .name(referenceDataCache.getGenreById(genreId).getName())
                 .build();
     }
+
+    /**
+     * Сборка фильмов из строк, отсортированных по film_id: фильм передаётся дальше, как только начинается следующий
+     */
+    private class FilmGroupingHandler implements RowCallbackHandler {
+        private final Consumer<Film> action;
+        private Film current;
+
+        FilmGroupingHandler(Consumer<Film> action) {
+            this.action = action;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long filmId = rs.getLong("film_id");
+
+            if (current == null || current.getId() != filmId) {
+                finish();
+                current = mapRowToFilm(rs, 0);
+            }
+
+            int genreId = rs.getInt("genre_id");
+            if (!rs.wasNull()) {
+                current.getGenres().add(mapGenre(genreId));
+            }
+        }
+
+        void finish() {
+            if (current != null) {
+                action.accept(current);
+                current = null;
+            }
+        }
+    }
 }
\ No newline at end of file
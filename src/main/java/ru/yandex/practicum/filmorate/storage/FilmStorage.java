@@ -3,8 +3,16 @@ package ru.yandex.practicum.filmorate.storage;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmCategories;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.FilmLike;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * Интерфейс для хранения фильмов
@@ -13,17 +21,45 @@ import java.util.List;
 public interface FilmStorage {
     List<Film> getFilmAll();
 
+    List<Film> getFilmPage(long afterId, int limit);
+
+    List<Film> getFilmPage(FilmFilter filter, long afterId, int limit);
+
+    void streamFilmAll(Consumer<Film> action);
+
     Film getFilmById(long filmId);
 
+    List<Film> getFilmsByIds(List<Long> filmIds);
+
     Film add(Film film);
 
+    void addAll(List<Film> films, int batchSize);
+
     Film update(Film film);
 
     boolean delete(Film film);
 
     List<Film> getPopularFilms(int count);
 
-    boolean addLike(long userId, long filmId);
+    List<Film> getPopularFilms(FilmFilter filter, int count);
+
+    List<Film> getFriendsFeed(long userId, int count);
+
+    boolean addLike(long filmId, long userId);
+
+    boolean deleteLike(long filmId, long userId);
+
+    void addLikes(List<FilmLike> likes, int batchSize);
+
+    List<Long> getLikedFilmIds(long userId);
+
+    Map<Long, Long> writeLikes(Collection<FilmLike> liked, Collection<FilmLike> unliked);
+
+    Map<Long, Long> getLikesCountByFilm();
+
+    Map<Long, Long> countLikesByFilm();
+
+    void streamLikesSince(Instant since, BiConsumer<Long, Instant> action);
 
-    boolean deleteLike(long userId, long filmId);
+    Map<Long, FilmCategories> getCategoriesByFilm();
 }
\ No newline at end of file
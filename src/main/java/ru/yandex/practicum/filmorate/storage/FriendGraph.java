@@ -0,0 +1,278 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.Arrays;
+
+/**
+ * Граф дружбы на примитивных long: для каждого пользователя хранится отсортированный массив id друзей
+ * <p>
+ * Пользователи ищутся в хэш-таблице с открытой адресацией, поэтому ни ключи, ни списки друзей
+ * не упаковываются в Long. Дружба направленная, как и в таблице friendship: ребро u -> v означает,
+ * что u добавил v в друзья. Класс не потокобезопасен, синхронизация остаётся на вызывающем.
+ */
+public class FriendGraph {
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final long[] NO_FRIENDS = new long[0];
+
+    private long[] keys;
+    private long[][] friends;
+    private int[] sizes;
+    private int vertexCount;
+    private long edgeCount;
+
+    public FriendGraph() {
+        this(16);
+    }
+
+    public FriendGraph(int expectedVertices) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedVertices * 2 - 1)) << 1;
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        friends = new long[capacity][];
+        sizes = new int[capacity];
+    }
+
+    /**
+     * Добавление ребра u -> v
+     *
+     * @return false, если такое ребро уже есть
+     */
+    public boolean addEdge(long u, long v) {
+        int slot = slotForInsert(u);
+        long[] adjacency = friends[slot];
+        int size = sizes[slot];
+        int position = Arrays.binarySearch(adjacency, 0, size, v);
+        if (position >= 0) {
+            return false;
+        }
+        position = -position - 1;
+
+        if (size == adjacency.length) {
+            adjacency = Arrays.copyOf(adjacency, Math.max(4, size + (size >> 1)));
+            friends[slot] = adjacency;
+        }
+        System.arraycopy(adjacency, position, adjacency, position + 1, size - position);
+        adjacency[position] = v;
+        sizes[slot] = size + 1;
+        edgeCount++;
+        return true;
+    }
+
+    /**
+     * Удаление ребра u -> v
+     *
+     * @return false, если такого ребра не было
+     */
+    public boolean removeEdge(long u, long v) {
+        int slot = slotOf(u);
+        if (slot < 0) {
+            return false;
+        }
+        long[] adjacency = friends[slot];
+        int size = sizes[slot];
+        int position = Arrays.binarySearch(adjacency, 0, size, v);
+        if (position < 0) {
+            return false;
+        }
+        System.arraycopy(adjacency, position + 1, adjacency, position, size - position - 1);
+        sizes[slot] = size - 1;
+        edgeCount--;
+        return true;
+    }
+
+    /**
+     * Удаление пользователя вместе со всеми входящими и исходящими рёбрами
+     */
+    public void removeVertex(long u) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY && keys[slot] != u) {
+                removeEdge(keys[slot], u);
+            }
+        }
+        int slot = slotOf(u);
+        if (slot >= 0) {
+            edgeCount -= sizes[slot];
+            friends[slot] = NO_FRIENDS;
+            sizes[slot] = 0;
+        }
+    }
+
+    /**
+     * Отсортированные id друзей пользователя
+     */
+    public long[] friends(long u) {
+        int slot = slotOf(u);
+        if (slot < 0) {
+            return NO_FRIENDS;
+        }
+        return Arrays.copyOf(friends[slot], sizes[slot]);
+    }
+
+    /**
+     * Общие друзья двух пользователей слиянием двух отсортированных массивов
+     */
+    public long[] commonFriends(long u, long v) {
+        int slotU = slotOf(u);
+        int slotV = slotOf(v);
+        if (slotU < 0 || slotV < 0) {
+            return NO_FRIENDS;
+        }
+        long[] a = friends[slotU];
+        long[] b = friends[slotV];
+        int sizeA = sizes[slotU];
+        int sizeB = sizes[slotV];
+        long[] result = new long[Math.min(sizeA, sizeB)];
+        int count = 0;
+
+        for (int i = 0, j = 0; i < sizeA && j < sizeB; ) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Друзья друзей пользователя, кроме него самого и его собственных друзей, отсортированные по id
+     */
+    public long[] friendsOfFriends(long u) {
+        int slot = slotOf(u);
+        if (slot < 0) {
+            return NO_FRIENDS;
+        }
+        long[] direct = friends[slot];
+        int directSize = sizes[slot];
+        long total = 0;
+        for (int i = 0; i < directSize; i++) {
+            int friendSlot = slotOf(direct[i]);
+            if (friendSlot >= 0) {
+                total += sizes[friendSlot];
+            }
+        }
+
+        long[] candidates = new long[Math.toIntExact(total)];
+        int count = 0;
+        for (int i = 0; i < directSize; i++) {
+            int friendSlot = slotOf(direct[i]);
+            if (friendSlot >= 0) {
+                System.arraycopy(friends[friendSlot], 0, candidates, count, sizes[friendSlot]);
+                count += sizes[friendSlot];
+            }
+        }
+        Arrays.sort(candidates, 0, count);
+
+        int unique = 0;
+        for (int i = 0, j = 0; i < count; i++) {
+            long candidate = candidates[i];
+            if (candidate == u || (unique > 0 && candidates[unique - 1] == candidate)) {
+                continue;
+            }
+            while (j < directSize && direct[j] < candidate) {
+                j++;
+            }
+            if (j < directSize && direct[j] == candidate) {
+                continue;
+            }
+            candidates[unique++] = candidate;
+        }
+        return Arrays.copyOf(candidates, unique);
+    }
+
+    public long edgeCount() {
+        return edgeCount;
+    }
+
+    public int vertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * Сжатие массивов друзей до фактического размера, например после массовой загрузки
+     */
+    public void trimToSize() {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY && friends[slot].length != sizes[slot]) {
+                friends[slot] = sizes[slot] == 0 ? NO_FRIENDS : Arrays.copyOf(friends[slot], sizes[slot]);
+            }
+        }
+    }
+
+    /**
+     * Оценка занимаемой графом памяти в байтах: хэш-таблица и массивы друзей с заголовками объектов
+     */
+    public long estimateBytes() {
+        long arrayHeader = 16;
+        long bytes = 3 * arrayHeader + (long) keys.length * (Long.BYTES + 4 + Integer.BYTES);
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY && friends[slot] != NO_FRIENDS) {
+                bytes += arrayHeader + (long) friends[slot].length * Long.BYTES;
+            }
+        }
+        return bytes;
+    }
+
+    private int slotOf(long key) {
+        int mask = keys.length - 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            if (keys[slot] == EMPTY) {
+                return -1;
+            }
+        }
+    }
+
+    private int slotForInsert(long key) {
+        int slot = slotOf(key);
+        if (slot >= 0) {
+            return slot;
+        }
+        if ((vertexCount + 1) * 2 > keys.length) {
+            resize(keys.length << 1);
+        }
+        int mask = keys.length - 1;
+        slot = hash(key) & mask;
+        while (keys[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        friends[slot] = NO_FRIENDS;
+        vertexCount++;
+        return slot;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        long[][] oldFriends = friends;
+        int[] oldSizes = sizes;
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        friends = new long[capacity][];
+        sizes = new int[capacity];
+
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY) {
+                continue;
+            }
+            int slot = hash(oldKeys[i]) & mask;
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            friends[slot] = oldFriends[i];
+            sizes[slot] = oldSizes[i];
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
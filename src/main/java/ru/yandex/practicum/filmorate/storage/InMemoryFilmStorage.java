@@ -4,9 +4,21 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmCategories;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Genres;
 
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * Реализация интерфейса для хранения фильмов
@@ -25,6 +37,11 @@ public class InMemoryFilmStorage implements FilmStorage {
         return film;
     }
 
+    @Override
+    public void addAll(List<Film> films, int batchSize) {
+        films.forEach(this::add);
+    }
+
     @Override
     public Film update(Film film) {
         return null;
@@ -57,15 +74,84 @@ public class InMemoryFilmStorage implements FilmStorage {
     }
 
     @Override
-    public boolean addLike(long userId, long filmId) {
+    public List<Film> getPopularFilms(FilmFilter filter, int count) {
+        return null;
+    }
+
+    @Override
+    public List<Film> getFriendsFeed(long userId, int count) {
+        return null;
+    }
+
+    @Override
+    public boolean addLike(long filmId, long userId) {
         return false;
     }
 
     @Override
-    public boolean deleteLike(long userId, long filmId) {
+    public boolean deleteLike(long filmId, long userId) {
         return false;
     }
 
+    @Override
+    public void addLikes(List<FilmLike> likes, int batchSize) {
+        likes.forEach(like -> addLike(like.getFilmId(), like.getUserId()));
+    }
+
+    @Override
+    public List<Long> getLikedFilmIds(long userId) {
+        return films.stream()
+                .filter(film -> film.getLikes() != null && film.getLikes().contains(userId))
+                .map(Film::getId)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Map<Long, Long> writeLikes(Collection<FilmLike> liked, Collection<FilmLike> unliked) {
+        Map<Long, Long> delta = new HashMap<>();
+        liked.forEach(like -> {
+            if (addLike(like.getFilmId(), like.getUserId())) {
+                delta.merge(like.getFilmId(), 1L, Long::sum);
+            }
+        });
+        unliked.forEach(like -> {
+            if (deleteLike(like.getFilmId(), like.getUserId())) {
+                delta.merge(like.getFilmId(), -1L, Long::sum);
+            }
+        });
+        return delta;
+    }
+
+    @Override
+    public Map<Long, Long> getLikesCountByFilm() {
+        return films.stream()
+                .collect(Collectors.toMap(Film::getId, film -> film.getLikes() == null ? 0L : film.getLikes().size()));
+    }
+
+    /**
+     * Отдельного счётчика в памяти нет, лайки считаются по самим фильмам
+     */
+    @Override
+    public Map<Long, Long> countLikesByFilm() {
+        return getLikesCountByFilm();
+    }
+
+    /**
+     * Время лайков в памяти не хранится, поэтому выгружать нечего
+     */
+    @Override
+    public void streamLikesSince(Instant since, BiConsumer<Long, Instant> action) {
+    }
+
+    @Override
+    public Map<Long, FilmCategories> getCategoriesByFilm() {
+        return films.stream()
+                .collect(Collectors.toMap(Film::getId, film -> new FilmCategories(film.getMpa().getId(),
+                        film.getGenres() == null ? new ArrayList<>() : film.getGenres().stream()
+                                .map(Genres::getId)
+                                .collect(Collectors.toList()))));
+    }
+
     /**
      * Получение списка фильмов
      */
@@ -73,6 +159,51 @@ public class InMemoryFilmStorage implements FilmStorage {
         return films;
     }
 
+    /**
+     * Получение страницы фильмов с id больше afterId
+     */
+    @Override
+    public List<Film> getFilmPage(long afterId, int limit) {
+        return films.stream()
+                .filter(p -> p.getId() > afterId)
+                .sorted(Comparator.comparingLong(Film::getId))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Получение страницы фильмов с id больше afterId, подходящих под фильтр
+     */
+    @Override
+    public List<Film> getFilmPage(FilmFilter filter, long afterId, int limit) {
+        return films.stream()
+                .filter(p -> p.getId() > afterId)
+                .filter(p -> filter.getGenreId() == null || p.getGenres() != null && p.getGenres().stream()
+                        .anyMatch(genre -> genre.getId() == filter.getGenreId()))
+                .filter(p -> filter.getMpaId() == null || p.getMpa().getId() == filter.getMpaId())
+                .filter(p -> filter.getYearFrom() == null || p.getReleaseDate().getYear() >= filter.getYearFrom())
+                .filter(p -> filter.getYearTo() == null || p.getReleaseDate().getYear() <= filter.getYearTo())
+                .filter(p -> filter.getMinDuration() == null || p.getDuration() >= filter.getMinDuration())
+                .sorted(Comparator.comparingLong(Film::getId))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void streamFilmAll(Consumer<Film> action) {
+        films.forEach(action);
+    }
+
+    /**
+     * Получение фильмов из списка по ID в порядке переданных ID
+     */
+    @Override
+    public List<Film> getFilmsByIds(List<Long> filmIds) {
+        return filmIds.stream()
+                .flatMap(id -> films.stream().filter(p -> p.getId() == id).limit(1))
+                .collect(Collectors.toList());
+    }
+
     /**
      * Получение фильма из списка по ID
      */
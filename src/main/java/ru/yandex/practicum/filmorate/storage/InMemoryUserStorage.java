@@ -3,86 +3,194 @@ package ru.yandex.practicum.filmorate.storage;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
- * Реализация интерфейса для хранения пользователей
+ * Реализация интерфейса для хранения пользователей в памяти
+ * <p>
+ * Пользователи хранятся в TreeMap по id, дружба — в {@link FriendGraph} на примитивных long.
  */
 @Slf4j
 @Component
 public class InMemoryUserStorage implements UserStorage {
-    private final List<User> users = new ArrayList<>();
+    private final NavigableMap<Long, User> users = new TreeMap<>();
+    private final FriendGraph friendGraph = new FriendGraph();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long nextId = 1;
 
     /**
-     * Добавление пользователя в список
+     * Добавление пользователя, id назначается, если не был указан
      */
     public User add(User user) {
-        users.add(user);
+        return write(() -> {
+            if (user.getId() == 0) {
+                user.setId(nextId);
+            }
+            nextId = Math.max(nextId, user.getId() + 1);
+            users.put(user.getId(), user);
+
+            return user;
+        });
+    }
 
-        return user;
+    @Override
+    public void addAll(List<User> newUsers, int batchSize) {
+        newUsers.forEach(this::add);
     }
 
     /**
-     * Обновление пользователя в списке
+     * Обновление пользователя
      */
     public User update(User user) {
-//        userExisting.setName(userForUpdate.getName());
-//        userExisting.setBirthday(userForUpdate.getBirthday());
-//        userExisting.setEmail(userForUpdate.getEmail());
-//        userExisting.setLogin(userForUpdate.getLogin());
-//
-        return user;
+        return write(() -> {
+            if (!users.containsKey(user.getId())) {
+                throw new NotFoundException(String.format("Пользователь с id %d не найден", user.getId()));
+            }
+            users.put(user.getId(), user);
+
+            return user;
+        });
     }
 
     /**
-     * Удаление пользователя из списка
+     * Удаление пользователя вместе с его дружескими связями
      */
     public boolean delete(User user) {
-        User userForDelete = user;
-
-        users.remove(user);
-
-        return users.contains(userForDelete);
+        return write(() -> {
+            if (users.remove(user.getId()) == null) {
+                return false;
+            }
+            friendGraph.removeVertex(user.getId());
+
+            return true;
+        });
     }
 
     /**
-     * Получение пользователя из списка по ID
+     * Получение пользователя по ID
      */
     public User getUserById(long userId) {
-        return users.stream()
-                .filter(p -> p.getId() == (userId))
-                .findFirst()
-                .orElseThrow(() -> new NotFoundException(String.format("Пользователь с id %d не найден",
-                        userId)));
+        return read(() -> {
+            User user = users.get(userId);
+            if (user == null) {
+                throw new NotFoundException(String.format("Пользователь с id %d не найден", userId));
+            }
+            return user;
+        });
+    }
+
+    /**
+     * Получение пользователей по ID в порядке переданных ID
+     */
+    @Override
+    public List<User> getUsersByIds(Collection<Long> userIds) {
+        return read(() -> userIds.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()));
     }
 
     /**
      * Получение списка пользователей
      */
     public List<User> getUserAll() {
-        return users;
+        return read(() -> new ArrayList<>(users.values()));
     }
 
+    /**
+     * Получение страницы пользователей с id больше afterId
+     */
+    @Override
+    public List<User> getUserPage(long afterId, int limit) {
+        return read(() -> users.tailMap(afterId, false).values().stream()
+                .limit(limit)
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    public void streamUserAll(Consumer<User> action) {
+        getUserAll().forEach(action);
+    }
 
     @Override
     public List<User> getFriendList(long id) {
-        return null;
+        return read(() -> toUsers(friendGraph.friends(id)));
     }
 
     @Override
     public boolean addFriend(long id, long friendId) {
-        return false;
+        return write(() -> friendGraph.addEdge(id, friendId));
     }
 
     @Override
     public boolean deleteFriend(long id, long friendId) {
-        return false;
+        return write(() -> friendGraph.removeEdge(id, friendId));
+    }
+
+    @Override
+    public void addFriends(List<Friendship> friendships, int batchSize) {
+        write(() -> {
+            friendships.forEach(friendship -> friendGraph.addEdge(friendship.getUserId(), friendship.getFriendId()));
+            return null;
+        });
     }
 
     @Override
     public Set<Long> getFriendsIdListByUserId(long id) {
-        return null;
+        return read(() -> Arrays.stream(friendGraph.friends(id))
+                .boxed()
+                .collect(Collectors.toSet()));
+    }
+
+    /**
+     * Получение общих друзей слиянием отсортированных списков друзей
+     */
+    @Override
+    public List<User> getCommonFriends(long id, long otherId) {
+        return read(() -> toUsers(friendGraph.commonFriends(id, otherId)));
+    }
+
+    /**
+     * Получение друзей друзей пользователя, которые ещё не являются его друзьями
+     */
+    public List<User> getFriendsOfFriends(long id) {
+        return read(() -> toUsers(friendGraph.friendsOfFriends(id)));
+    }
+
+    private List<User> toUsers(long[] ids) {
+        List<User> result = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            User user = users.get(id);
+            if (user != null) {
+                result.add(user);
+            }
+        }
+        return result;
+    }
+
+    private <T> T read(Supplier<T> action) {
+        lock.readLock().lock();
+        try {
+            return action.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private <T> T write(Supplier<T> action) {
+        lock.writeLock().lock();
+        try {
+            return action.get();
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.jdbc.core.PreparedStatementCreatorFactory;
+
+/**
+ * Заранее собранные INSERT-запросы, возвращающие сгенерированный id
+ * <p>
+ * Фабрика создаётся один раз и после настройки неизменяема, поэтому безопасно используется из разных потоков.
+ * В отличие от SimpleJdbcInsert, она не читает метаданные таблицы: вставка занимает одно обращение к базе.
+ */
+final class InsertStatements {
+    private InsertStatements() {
+    }
+
+    static PreparedStatementCreatorFactory returningId(String sql, String keyColumn, int... types) {
+        PreparedStatementCreatorFactory factory = new PreparedStatementCreatorFactory(sql, types);
+        factory.setReturnGeneratedKeys(true);
+        factory.setGeneratedKeysColumnNames(keyColumn);
+        return factory;
+    }
+}
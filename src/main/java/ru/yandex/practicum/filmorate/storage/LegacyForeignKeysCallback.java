@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.callback.Callback;
+import org.flywaydb.core.api.callback.Context;
+import org.flywaydb.core.api.callback.Event;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Удаление внешних ключей базы, созданной прежним schema.sql, перед миграцией V1
+ * <p>
+ * Прежняя схема создавала внешние ключи без имён, и H2 называл их сам, поэтому удалить их по имени
+ * из SQL-миграции нельзя. До V1 внешних ключей из миграций ещё нет, так что все найденные ключи — прежние;
+ * V1 создаёт вместо них те же ключи с именами.
+ */
+@Slf4j
+public class LegacyForeignKeysCallback implements Callback {
+    private static final MigrationVersion SCHEMA_VERSION = MigrationVersion.fromVersion("1");
+    private static final String FIND_FOREIGN_KEYS = "SELECT TABLE_NAME, " +
+            "CONSTRAINT_NAME " +
+            "FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS " +
+            "WHERE CONSTRAINT_SCHEMA = 'PUBLIC' AND CONSTRAINT_TYPE = 'FOREIGN KEY'";
+
+    @Override
+    public boolean supports(Event event, Context context) {
+        return event == Event.BEFORE_EACH_MIGRATE
+                && SCHEMA_VERSION.equals(context.getMigrationInfo().getVersion());
+    }
+
+    @Override
+    public boolean canHandleInTransaction(Event event, Context context) {
+        return true;
+    }
+
+    @Override
+    public void handle(Event event, Context context) {
+        try (Statement statement = context.getConnection().createStatement()) {
+            List<String> drops = new ArrayList<>();
+            try (ResultSet rs = statement.executeQuery(FIND_FOREIGN_KEYS)) {
+                while (rs.next()) {
+                    drops.add("ALTER TABLE \"" + rs.getString("TABLE_NAME") + "\" DROP CONSTRAINT \""
+                            + rs.getString("CONSTRAINT_NAME") + "\"");
+                }
+            }
+            for (String drop : drops) {
+                statement.execute(drop);
+            }
+            if (!drops.isEmpty()) {
+                log.info("Удалено {} внешних ключей прежней схемы", drops.size());
+            }
+        } catch (SQLException e) {
+            throw new FlywayException("Не удалось удалить внешние ключи прежней схемы", e);
+        }
+    }
+
+    @Override
+    public String getCallbackName() {
+        return "legacy-foreign-keys";
+    }
+}
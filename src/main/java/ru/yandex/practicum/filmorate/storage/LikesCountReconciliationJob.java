@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Периодическая сверка счётчиков лайков фильмов с таблицей film_like
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LikesCountReconciliationJob {
+    private final FilmDbStorage filmDbStorage;
+
+    @Scheduled(fixedDelayString = "${filmorate.likes-count.reconcile-interval-ms:3600000}",
+            initialDelayString = "${filmorate.likes-count.reconcile-interval-ms:3600000}")
+    public void reconcile() {
+        int drifted = filmDbStorage.reconcileLikesCount();
+
+        if (drifted > 0) {
+            log.warn("Исправлены счётчики лайков у {} фильмов", drifted);
+        } else {
+            log.debug("Счётчики лайков совпадают с film_like");
+        }
+    }
+}
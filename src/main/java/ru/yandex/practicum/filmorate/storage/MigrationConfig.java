@@ -0,0 +1,53 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.MigrationInfo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayConfigurationCustomizer;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Запуск миграций схемы при старте приложения
+ * <p>
+ * Обычный запуск проверяет контрольные суммы всех применённых миграций и применяет новые. В режиме быстрого
+ * старта (filmorate.startup.fast-start=true) проверка контрольных сумм отключается, а если версия схемы
+ * в базе совпадает с последней миграцией, migrate не вызывается вовсе: справочники и схема не перезаписываются.
+ * <p>
+ * База, созданная прежним schema.sql, принимается за версию 0; перед V1 из неё удаляются безымянные
+ * внешние ключи ({@link LegacyForeignKeysCallback}).
+ */
+@Slf4j
+@Configuration
+public class MigrationConfig {
+    private final boolean fastStart;
+
+    public MigrationConfig(@Value("${filmorate.startup.fast-start:false}") boolean fastStart) {
+        this.fastStart = fastStart;
+    }
+
+    @Bean
+    public FlywayConfigurationCustomizer fastStartFlywayCustomizer() {
+        return configuration -> configuration.validateOnMigrate(!fastStart);
+    }
+
+    @Bean
+    public LegacyForeignKeysCallback legacyForeignKeysCallback() {
+        return new LegacyForeignKeysCallback();
+    }
+
+    @Bean
+    public FlywayMigrationStrategy fastStartMigrationStrategy() {
+        return flyway -> {
+            if (fastStart) {
+                MigrationInfo[] pending = flyway.info().pending();
+                if (pending.length == 0) {
+                    log.info("Схема базы данных актуальна, миграции пропущены");
+                    return;
+                }
+            }
+            flyway.migrate();
+        };
+    }
+}
@@ -0,0 +1,164 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.r2dbc.spi.Row;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genres;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Реализация неблокирующего чтения фильмов через R2DBC
+ * <p>
+ * Фильм и его жанры читаются одним запросом: строки отсортированы по film_id, и фильм передаётся дальше,
+ * как только начинается следующий. Названия mpa и жанров берутся из справочника в памяти.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class R2dbcFilmStorage implements ReactiveFilmStorage {
+    private static final String FIND_ALL_FILMS_WITH_GENRES = "SELECT f.*, " +
+            "fg.genre_id " +
+            "FROM films f " +
+            "LEFT JOIN film_genre fg ON fg.film_id = f.film_id " +
+            "ORDER BY f.film_id, fg.genre_id";
+    private static final String FIND_FILMS_PAGE_WITH_GENRES = "SELECT f.*, " +
+            "fg.genre_id " +
+            "FROM (SELECT * FROM films WHERE film_id > :afterId ORDER BY film_id LIMIT :limit) f " +
+            "LEFT JOIN film_genre fg ON fg.film_id = f.film_id " +
+            "ORDER BY f.film_id, fg.genre_id";
+    private static final String FIND_FILM_BY_ID_WITH_GENRES = "SELECT f.*, " +
+            "fg.genre_id " +
+            "FROM films f " +
+            "LEFT JOIN film_genre fg ON fg.film_id = f.film_id " +
+            "WHERE f.film_id = :filmId " +
+            "ORDER BY fg.genre_id";
+    private static final String FIND_FILMS_BY_IDS_WITH_GENRES = "SELECT f.*, " +
+            "fg.genre_id " +
+            "FROM films f " +
+            "LEFT JOIN film_genre fg ON fg.film_id = f.film_id " +
+            "WHERE f.film_id = ANY(:filmIds) " +
+            "ORDER BY f.film_id, fg.genre_id";
+
+    private final DatabaseClient databaseClient;
+    private final ReferenceDataCache referenceDataCache;
+
+    /**
+     * Построчное чтение всех фильмов
+     */
+    @Override
+    public Flux<Film> getFilmAll() {
+        return groupByFilm(databaseClient.sql(FIND_ALL_FILMS_WITH_GENRES)
+                .map(this::mapRowToFilm)
+                .all());
+    }
+
+    /**
+     * Получение страницы фильмов с id больше afterId
+     */
+    @Override
+    public Flux<Film> getFilmPage(long afterId, int limit) {
+        return groupByFilm(databaseClient.sql(FIND_FILMS_PAGE_WITH_GENRES)
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(this::mapRowToFilm)
+                .all());
+    }
+
+    /**
+     * Получение фильма по id, пустой результат, если фильма нет
+     */
+    @Override
+    public Mono<Film> getFilmById(long filmId) {
+        return groupByFilm(databaseClient.sql(FIND_FILM_BY_ID_WITH_GENRES)
+                .bind("filmId", filmId)
+                .map(this::mapRowToFilm)
+                .all())
+                .next()
+                .doOnNext(film -> {
+                    if (film.getGenres().size() == 0) {
+                        film.setGenres(null);
+                    }
+                });
+    }
+
+    /**
+     * Получение фильмов по списку id в порядке этого списка
+     */
+    @Override
+    public Flux<Film> getFilmsByIds(List<Long> filmIds) {
+        if (filmIds.isEmpty()) {
+            return Flux.empty();
+        }
+        return groupByFilm(databaseClient.sql(FIND_FILMS_BY_IDS_WITH_GENRES)
+                .bind("filmIds", filmIds.toArray(new Long[0]))
+                .map(this::mapRowToFilm)
+                .all())
+                .collectMap(Film::getId)
+                .flatMapIterable(filmsById -> orderBy(filmIds, filmsById));
+    }
+
+    private Flux<Film> groupByFilm(Flux<Film> rows) {
+        return rows.bufferUntilChanged(Film::getId)
+                .map(this::mergeGenres);
+    }
+
+    /**
+     * Сборка фильма из строк с одним и тем же film_id: у каждой строки не больше одного жанра
+     */
+    private Film mergeGenres(List<Film> rows) {
+        Film film = rows.get(0);
+        for (int i = 1; i < rows.size(); i++) {
+            film.getGenres().addAll(rows.get(i).getGenres());
+        }
+        return film;
+    }
+
+    private List<Film> orderBy(List<Long> filmIds, Map<Long, Film> filmsById) {
+        return filmIds.stream()
+                .map(filmsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private Film mapRowToFilm(Row row) {
+        List<Genres> genres = new ArrayList<>();
+        Integer genreId = row.get("genre_id", Integer.class);
+        if (genreId != null) {
+            genres.add(mapGenre(genreId));
+        }
+
+        return Film.builder()
+                .id(row.get("film_id", Long.class))
+                .name(row.get("name", String.class))
+                .rate(row.get("rate", Integer.class))
+                .mpa(mapMpa(row.get("mpa_id", Integer.class)))
+                .description(row.get("description", String.class))
+                .releaseDate(row.get("release_date", LocalDate.class))
+                .duration(row.get("duration", Integer.class))
+                .genres(genres)
+                .build();
+    }
+
+    private Mpa mapMpa(int mpaId) {
+        return new Mpa(mpaId, referenceDataCache.getMpaById(mpaId).getName());
+    }
+
+    private Genres mapGenre(int genreId) {
+        return Genres.builder()
+                .id(genreId)
+                .name(referenceDataCache.getGenreById(genreId).getName())
+                .build();
+    }
+}
@@ -0,0 +1,112 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.r2dbc.spi.Row;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+
+/**
+ * Реализация неблокирующего чтения пользователей и друзей через R2DBC
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class R2dbcUserStorage implements ReactiveUserStorage {
+    private static final String FIND_ALL_USERS = "SELECT * " +
+            "FROM users " +
+            "ORDER BY id";
+    private static final String FIND_USERS_PAGE = "SELECT * " +
+            "FROM users " +
+            "WHERE id > :afterId " +
+            "ORDER BY id " +
+            "LIMIT :limit";
+    private static final String FIND_USER_BY_ID = "SELECT * " +
+            "FROM users " +
+            "WHERE id = :id";
+    private static final String FIND_USER_FRIENDS_BY_ID = "SELECT u.* " +
+            "FROM friendship fs " +
+            "JOIN users u ON fs.user2_id = u.id " +
+            "WHERE fs.user1_id = :id " +
+            "ORDER BY fs.user2_id";
+    private static final String FIND_COMMON_FRIENDS = "SELECT u.* " +
+            "FROM friendship fs1 " +
+            "JOIN friendship fs2 ON fs1.user2_id = fs2.user2_id " +
+            "JOIN users u ON fs1.user2_id = u.id " +
+            "WHERE fs1.user1_id = :id " +
+            "AND fs2.user1_id = :otherId " +
+            "ORDER BY fs1.user2_id";
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Построчное чтение всех пользователей
+     */
+    @Override
+    public Flux<User> getUserAll() {
+        return databaseClient.sql(FIND_ALL_USERS)
+                .map(this::mapRowToUser)
+                .all();
+    }
+
+    /**
+     * Получение страницы пользователей с id больше afterId
+     */
+    @Override
+    public Flux<User> getUserPage(long afterId, int limit) {
+        return databaseClient.sql(FIND_USERS_PAGE)
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(this::mapRowToUser)
+                .all();
+    }
+
+    /**
+     * Получение пользователя по ID, пустой результат, если пользователя нет
+     */
+    @Override
+    public Mono<User> getUserById(long userId) {
+        return databaseClient.sql(FIND_USER_BY_ID)
+                .bind("id", userId)
+                .map(this::mapRowToUser)
+                .one();
+    }
+
+    /**
+     * Построчное чтение друзей пользователя
+     */
+    @Override
+    public Flux<User> getFriendList(long id) {
+        return databaseClient.sql(FIND_USER_FRIENDS_BY_ID)
+                .bind("id", id)
+                .map(this::mapRowToUser)
+                .all();
+    }
+
+    /**
+     * Построчное чтение общих друзей двух пользователей
+     */
+    @Override
+    public Flux<User> getCommonFriends(long id, long otherId) {
+        return databaseClient.sql(FIND_COMMON_FRIENDS)
+                .bind("id", id)
+                .bind("otherId", otherId)
+                .map(this::mapRowToUser)
+                .all();
+    }
+
+    private User mapRowToUser(Row row) {
+        return User.builder()
+                .id(row.get("id", Long.class))
+                .email(row.get("email", String.class))
+                .login(row.get("login", String.class))
+                .name(row.get("name", String.class))
+                .birthday(row.get("birthday", LocalDate.class))
+                .build();
+    }
+}
@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.List;
+
+/**
+ * Неблокирующее чтение фильмов: результаты отдаются по мере чтения из базы с учётом запроса подписчика
+ */
+public interface ReactiveFilmStorage {
+    Flux<Film> getFilmAll();
+
+    Flux<Film> getFilmPage(long afterId, int limit);
+
+    Mono<Film> getFilmById(long filmId);
+
+    Flux<Film> getFilmsByIds(List<Long> filmIds);
+}
@@ -0,0 +1,64 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * Подключение R2DBC для реактивного режима (spring.main.web-application-type=reactive)
+ * <p>
+ * Пул R2DBC открывает ту же базу H2, что и пул JDBC: адрес берётся из spring.datasource.url, поэтому схему
+ * по-прежнему создаёт Flyway, а записи, которые идут через блокирующие сервисы, сразу видны реактивному чтению.
+ * Автоконфигурация R2DBC отключена в application.properties: иначе в обычном режиме рядом с пулом JDBC
+ * появились бы второй пул и второй менеджер транзакций.
+ * <p>
+ * Пул JDBC объявлен здесь явно: автоконфигурация DataSource отступает, когда в контексте есть
+ * {@link ConnectionFactory}, а без неё не было бы ни JdbcTemplate для блокирующих хранилищ, ни Flyway.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveStorageConfig {
+    private static final String H2_JDBC_PREFIX = "jdbc:h2:";
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionPool connectionFactory(DataSourceProperties properties,
+                                            @Value("${filmorate.r2dbc.pool-size:10}") int poolSize) {
+        String url = properties.determineUrl();
+        if (!url.startsWith(H2_JDBC_PREFIX)) {
+            throw new IllegalStateException("Реактивный режим поддерживает только базу H2, адрес: " + url);
+        }
+        H2ConnectionFactory h2 = new H2ConnectionFactory(H2ConnectionConfiguration.builder()
+                .url(url.substring(H2_JDBC_PREFIX.length()))
+                .username(properties.determineUsername())
+                .password(properties.determinePassword())
+                .build());
+
+        return new ConnectionPool(ConnectionPoolConfiguration.builder(h2)
+                .initialSize(poolSize)
+                .maxSize(poolSize)
+                .build());
+    }
+
+    @Bean
+    public DatabaseClient databaseClient(ConnectionFactory connectionFactory) {
+        return DatabaseClient.create(connectionFactory);
+    }
+}
@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.model.User;
+
+/**
+ * Неблокирующее чтение пользователей и друзей: результаты отдаются по мере чтения из базы с учётом запроса подписчика
+ */
+public interface ReactiveUserStorage {
+    Flux<User> getUserAll();
+
+    Flux<User> getUserPage(long afterId, int limit);
+
+    Mono<User> getUserById(long userId);
+
+    Flux<User> getFriendList(long id);
+
+    Flux<User> getCommonFriends(long id, long otherId);
+}
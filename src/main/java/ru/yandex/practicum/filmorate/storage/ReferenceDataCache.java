@@ -0,0 +1,92 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Genres;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+
+/**
+ * Справочники MPA и жанров, загруженные в память
+ * <p>
+ * Справочники меняются только миграциями базы данных, поэтому хранятся неизменяемым снимком
+ * с массивами, индексированными по mpa_id и genre_id. Миграции применяются при старте до создания
+ * хранилищ, и снимок загружается уже по новой схеме; после ручного изменения таблиц mpa или genre
+ * приложение нужно перезапустить.
+ */
+@Slf4j
+@Component
+public class ReferenceDataCache implements MpaStorage, GenresStorage {
+    private final MpaStorage mpaStorage;
+    private final GenresStorage genresStorage;
+    private volatile Snapshot snapshot;
+
+    public ReferenceDataCache(@Qualifier("mpaDbStorage") MpaStorage mpaStorage,
+                              @Qualifier("genresDbStorage") GenresStorage genresStorage) {
+        this.mpaStorage = mpaStorage;
+        this.genresStorage = genresStorage;
+    }
+
+    /**
+     * Загрузка справочников из базы данных
+     */
+    @PostConstruct
+    private void load() {
+        List<Mpa> mpaAll = List.copyOf(mpaStorage.getMpaAll());
+        List<Genres> genreAll = List.copyOf(genresStorage.getGenreAll());
+
+        Mpa[] mpaById = new Mpa[mpaAll.stream().mapToInt(Mpa::getId).max().orElse(0) + 1];
+        mpaAll.forEach(mpa -> mpaById[mpa.getId()] = mpa);
+        Genres[] genresById = new Genres[genreAll.stream().mapToInt(Genres::getId).max().orElse(0) + 1];
+        genreAll.forEach(genre -> genresById[genre.getId()] = genre);
+
+        snapshot = new Snapshot(mpaAll, mpaById, genreAll, genresById);
+        log.info("Справочники загружены: {} mpa, {} жанров", mpaAll.size(), genreAll.size());
+    }
+
+    @Override
+    public List<Mpa> getMpaAll() {
+        return snapshot.mpaAll;
+    }
+
+    @Override
+    public Mpa getMpaById(int mpaId) {
+        Mpa[] mpaById = snapshot.mpaById;
+        if (mpaId < 0 || mpaId >= mpaById.length || mpaById[mpaId] == null) {
+            throw new NotFoundException(String.format("Mpa с id %d не найден", mpaId));
+        }
+        return mpaById[mpaId];
+    }
+
+    @Override
+    public List<Genres> getGenreAll() {
+        return snapshot.genreAll;
+    }
+
+    @Override
+    public Genres getGenreById(int genreId) {
+        Genres[] genresById = snapshot.genresById;
+        if (genreId < 0 || genreId >= genresById.length || genresById[genreId] == null) {
+            throw new NotFoundException(String.format("Жанр с id %d не найден", genreId));
+        }
+        return genresById[genreId];
+    }
+
+    private static class Snapshot {
+        private final List<Mpa> mpaAll;
+        private final Mpa[] mpaById;
+        private final List<Genres> genreAll;
+        private final Genres[] genresById;
+
+        Snapshot(List<Mpa> mpaAll, Mpa[] mpaById, List<Genres> genreAll, Genres[] genresById) {
+            this.mpaAll = mpaAll;
+            this.mpaById = mpaById;
+            this.genreAll = genreAll;
+            this.genresById = genresById;
+        }
+    }
+}
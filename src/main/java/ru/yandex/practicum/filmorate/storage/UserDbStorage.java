@@ -1,17 +1,33 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.core.PreparedStatementCreatorFactory;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * Реализация интерфейса для хранения пользователей
@@ -21,9 +37,22 @@ import java.util.Set;
 public class UserDbStorage implements UserStorage {
     private static final String FIND_ALL_USERS = "SELECT * " +
             "FROM users";
+    private static final String FIND_USERS_PAGE = "SELECT * " +
+            "FROM users " +
+            "WHERE id > ? " +
+            "ORDER BY id " +
+            "LIMIT ?";
     private static final String FIND_USER_BY_ID = "SELECT * " +
             "FROM users " +
             "WHERE id = ?";
+    private static final String FIND_USERS_BY_IDS = "SELECT * " +
+            "FROM users " +
+            "WHERE id = ANY(?)";
+    private static final String INSERT_USER = "INSERT INTO users " +
+            "(email, login, name, birthday) " +
+            "VALUES (?, ?, ?, ?)";
+    private static final PreparedStatementCreatorFactory INSERT_USER_RETURNING_ID = InsertStatements.returningId(
+            INSERT_USER, "id", Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.DATE);
     private static final String UPDATE_USER = "UPDATE users SET " +
             "email = ?, login = ?, name = ?, birthday = ? " +
             "WHERE id = ?";
@@ -31,11 +60,23 @@ public class UserDbStorage implements UserStorage {
             "FROM friendship fs " +
             "LEFT JOIN users u ON fs.user2_id = u.id " +
             "WHERE fs.user1_id = ? ";
+    private static final String FIND_COMMON_FRIENDS = "SELECT u.* " +
+            "FROM friendship fs1 " +
+            "JOIN friendship fs2 ON fs1.user2_id = fs2.user2_id " +
+            "JOIN users u ON fs1.user2_id = u.id " +
+            "WHERE fs1.user1_id = ? " +
+            "AND fs2.user1_id = ?";
     private static final String FIND_FRIENDS_ID_BY_USER_ID = "SELECT user2_id " +
             "FROM friendship " +
             "WHERE user1_id = ? ";
     private static String DELETE_USER = "DELETE FROM users " +
             "WHERE id = ?";
+    private static final String DECREMENT_LIKED_FILMS_COUNT = "UPDATE films SET " +
+            "likes_count = likes_count - 1 " +
+            "WHERE film_id IN (SELECT film_id FROM film_like WHERE user_id = ?)";
+    private static final String DECREMENT_LIKED_FILM_GENRES_COUNT = "UPDATE film_genre SET " +
+            "likes_count = likes_count - 1 " +
+            "WHERE film_id IN (SELECT film_id FROM film_like WHERE user_id = ?)";
     private static String CHECK_FRIENDSHIP = "SELECT status " +
             "FROM friendship " +
             "WHERE user1_id = ? " +
@@ -49,6 +90,8 @@ public class UserDbStorage implements UserStorage {
             "WHERE user1_id = ? " +
             "AND user2_id = ?";
 
+    private static final int STREAM_FETCH_SIZE = 500;
+
     private final JdbcTemplate jdbcTemplate;
 
     /**
@@ -59,6 +102,28 @@ public class UserDbStorage implements UserStorage {
         return jdbcTemplate.query(FIND_ALL_USERS, this::mapRowToUser);
     }
 
+    /**
+     * Получение страницы пользователей с id больше afterId
+     */
+    @Override
+    public List<User> getUserPage(long afterId, int limit) {
+        return jdbcTemplate.query(FIND_USERS_PAGE, this::mapRowToUser, afterId, limit);
+    }
+
+    /**
+     * Построчная выгрузка всех пользователей без загрузки таблицы в память, с тайм-аутом выгрузки
+     * вместо общего query-timeout
+     */
+    @Override
+    @Transactional(readOnly = true, timeout = FilmDbStorage.STREAM_TIMEOUT_SECONDS)
+    public void streamUserAll(Consumer<User> action) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(FIND_ALL_USERS);
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) rs -> action.accept(mapRowToUser(rs, 0)));
+    }
+
     /**
      * Получение пользователя по ID
      */
@@ -67,19 +132,66 @@ public class UserDbStorage implements UserStorage {
         return jdbcTemplate.queryForObject(FIND_USER_BY_ID, this::mapRowToUser, userId);
     }
 
+    /**
+     * Получение пользователей по списку ID в порядке этого списка
+     */
+    @Override
+    public List<User> getUsersByIds(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, User> usersById = new HashMap<>();
+        jdbcTemplate.query(FIND_USERS_BY_IDS, this::mapRowToUser, (Object) userIds.toArray(new Long[0]))
+                .forEach(user -> usersById.put(user.getId(), user));
+
+        return userIds.stream()
+                .map(usersById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
     /**
      * Добавление пользователя
      */
     @Override
     public User add(User user) {
-        SimpleJdbcInsert simpleJdbcInsert = new SimpleJdbcInsert(jdbcTemplate)
-                .withTableName("users")
-                .usingGeneratedKeyColumns("id");
-        user.setId(simpleJdbcInsert.executeAndReturnKey(user.toMap()).longValue());
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(INSERT_USER_RETURNING_ID.newPreparedStatementCreator(Arrays.asList(user.getEmail(),
+                user.getLogin(), user.getName(), user.getBirthday())), keyHolder);
+        user.setId(Objects.requireNonNull(keyHolder.getKey()).longValue());
 
         return user;
     }
 
+    /**
+     * Пакетное добавление пользователей: id присваиваются объектам из сгенерированных ключей
+     */
+    @Override
+    public void addAll(List<User> users, int batchSize) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_USER, new String[]{"id"})) {
+                for (int from = 0; from < users.size(); from += batchSize) {
+                    List<User> batch = users.subList(from, Math.min(from + batchSize, users.size()));
+                    for (User user : batch) {
+                        statement.setString(1, user.getEmail());
+                        statement.setString(2, user.getLogin());
+                        statement.setString(3, user.getName());
+                        statement.setObject(4, user.getBirthday());
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                    try (ResultSet keys = statement.getGeneratedKeys()) {
+                        for (User user : batch) {
+                            keys.next();
+                            user.setId(keys.getLong(1));
+                        }
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
     /**
      * Обновление данных пользователя
      */
@@ -95,10 +207,15 @@ public class UserDbStorage implements UserStorage {
     }
 
     /**
-     * Удаление пользователя
+     * Удаление пользователя вместе с уменьшением счётчиков лайков фильмов, которые он лайкал:
+     * его строки film_like удаляются каскадом
      */
     @Override
+    @Transactional
     public boolean delete(User user) {
+        jdbcTemplate.update(DECREMENT_LIKED_FILMS_COUNT, user.getId());
+        jdbcTemplate.update(DECREMENT_LIKED_FILM_GENRES_COUNT, user.getId());
+
         return jdbcTemplate.update(DELETE_USER, user.getId()) > 0;
     }
 
@@ -132,6 +249,18 @@ public class UserDbStorage implements UserStorage {
         }
     }
 
+    /**
+     * Пакетное добавление заявок в друзья
+     */
+    @Override
+    public void addFriends(List<Friendship> friendships, int batchSize) {
+        jdbcTemplate.batchUpdate(INSERT_FRIENDSHIP, friendships, batchSize, (statement, friendship) -> {
+            statement.setLong(1, friendship.getUserId());
+            statement.setLong(2, friendship.getFriendId());
+            statement.setString(3, "Not Confirmed");
+        });
+    }
+
     /**
      * Удаление пользователя из друзей
      */
@@ -148,6 +277,14 @@ public class UserDbStorage implements UserStorage {
         return new HashSet<>(jdbcTemplate.query(FIND_FRIENDS_ID_BY_USER_ID, (rs, friend_id) -> rs.getLong("user2_id"), id));
     }
 
+    /**
+     * Получение общих друзей двух пользователей одним запросом
+     */
+    @Override
+    public List<User> getCommonFriends(long id, long otherId) {
+        return jdbcTemplate.query(FIND_COMMON_FRIENDS, this::mapRowToUser, id, otherId);
+    }
+
     private User mapRowToUser(ResultSet resultSet, int rowNum) throws SQLException {
         return User.builder()
                 .id(resultSet.getLong("id"))
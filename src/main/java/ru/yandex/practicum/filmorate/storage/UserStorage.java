@@ -1,10 +1,13 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Интерфейс для хранения пользователей
@@ -13,10 +16,18 @@ import java.util.Set;
 public interface UserStorage {
     List<User> getUserAll();
 
+    List<User> getUserPage(long afterId, int limit);
+
+    void streamUserAll(Consumer<User> action);
+
     User getUserById(long userId);
 
+    List<User> getUsersByIds(Collection<Long> userIds);
+
     User add(User user);
 
+    void addAll(List<User> users, int batchSize);
+
     User update(User user);
 
     boolean delete(User user);
@@ -27,5 +38,9 @@ public interface UserStorage {
 
     boolean deleteFriend(long id, long friendId);
 
+    void addFriends(List<Friendship> friendships, int batchSize);
+
     Set<Long> getFriendsIdListByUserId(long id);
+
+    List<User> getCommonFriends(long id, long otherId);
 }
\ No newline at end of file
@@ -0,0 +1,99 @@
+-- Схема создаётся один раз и больше не пересоздаётся при запуске. Таблицы, индексы и ограничения создаются
+-- с IF NOT EXISTS, чтобы миграция поверх базы, созданной прежним schema.sql, сохранила данные.
+-- Внешние ключи добавляются после индексов: H2 использует для них уже созданный индекс, а не свой.
+-- Безымянные внешние ключи прежней схемы удаляет перед этой миграцией LegacyForeignKeysCallback,
+-- иначе именованные ключи ниже продублировали бы их.
+
+CREATE TABLE IF NOT EXISTS `mpa`
+(
+    `mpa_id` int PRIMARY KEY NOT NULL,
+    `name`   varchar(5)
+);
+
+CREATE TABLE IF NOT EXISTS `genre`
+(
+    `genre_id` int PRIMARY KEY NOT NULL,
+    `name`     varchar(50)
+);
+
+CREATE TABLE IF NOT EXISTS `users`
+(
+    `id`       bigint PRIMARY KEY AUTO_INCREMENT,
+    `email`    varchar(50) NOT NULL,
+    `login`    varchar(50) NOT NULL,
+    `name`     varchar(50) NOT NULL,
+    `birthday` date        NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS `films`
+(
+    `film_id`      bigint PRIMARY KEY AUTO_INCREMENT,
+    `name`         varchar(50)  NOT NULL,
+    `rate`         int          NOT NULL,
+    `mpa_id`       int          NOT NULL,
+    `description`  varchar(200) NOT NULL,
+    `release_date` date         NOT NULL,
+    `duration`     int          NOT NULL,
+    `likes_count`  bigint       NOT NULL DEFAULT 0
+);
+
+-- В прежней схеме счётчика не было: он добавляется и заполняется по film_like
+ALTER TABLE `films`
+    ADD COLUMN IF NOT EXISTS `likes_count` bigint NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS `friendship`
+(
+    `user1_id` bigint      NOT NULL,
+    `user2_id` bigint      NOT NULL,
+    `status`   varchar(20) NOT NULL,
+    PRIMARY KEY (`user1_id`, `user2_id`)
+);
+
+CREATE TABLE IF NOT EXISTS `film_like`
+(
+    `film_id` bigint NOT NULL,
+    `user_id` bigint NOT NULL,
+    PRIMARY KEY (`film_id`, `user_id`)
+);
+
+CREATE TABLE IF NOT EXISTS `film_genre`
+(
+    `film_id`  bigint NOT NULL,
+    `genre_id` int    NOT NULL,
+    PRIMARY KEY (`film_id`, `genre_id`)
+);
+
+UPDATE `films` f
+SET `likes_count` = (SELECT COUNT(*) FROM `film_like` fl WHERE fl.`film_id` = f.`film_id`);
+
+-- Популярные фильмы: ORDER BY likes_count DESC, film_id LIMIT ? читается из индекса без сортировки
+CREATE INDEX IF NOT EXISTS `films_likes_count_idx` ON `films` (`likes_count` DESC, `film_id`);
+-- Фильтр по рейтингу и каскадное удаление mpa
+CREATE INDEX IF NOT EXISTS `films_mpa_id_idx` ON `films` (`mpa_id`);
+-- Лайки пользователя и каскадное удаление пользователя; первичный ключ начинается с film_id
+CREATE INDEX IF NOT EXISTS `film_like_user_id_idx` ON `film_like` (`user_id`, `film_id`);
+-- Кто добавил пользователя в друзья и каскадное удаление пользователя
+CREATE INDEX IF NOT EXISTS `friendship_user2_id_idx` ON `friendship` (`user2_id`, `user1_id`);
+-- Фильмы жанра и каскадное удаление жанра
+CREATE INDEX IF NOT EXISTS `film_genre_genre_id_idx` ON `film_genre` (`genre_id`, `film_id`);
+
+ALTER TABLE `films`
+    ADD CONSTRAINT IF NOT EXISTS `films_mpa_fk` FOREIGN KEY (`mpa_id`) REFERENCES `mpa` (`mpa_id`) ON DELETE CASCADE;
+
+ALTER TABLE `friendship`
+    ADD CONSTRAINT IF NOT EXISTS `friendship_user1_fk` FOREIGN KEY (`user1_id`) REFERENCES `users` (`id`) ON DELETE CASCADE;
+
+ALTER TABLE `friendship`
+    ADD CONSTRAINT IF NOT EXISTS `friendship_user2_fk` FOREIGN KEY (`user2_id`) REFERENCES `users` (`id`) ON DELETE CASCADE;
+
+ALTER TABLE `film_like`
+    ADD CONSTRAINT IF NOT EXISTS `film_like_film_fk` FOREIGN KEY (`film_id`) REFERENCES `films` (`film_id`) ON DELETE CASCADE;
+
+ALTER TABLE `film_like`
+    ADD CONSTRAINT IF NOT EXISTS `film_like_user_fk` FOREIGN KEY (`user_id`) REFERENCES `users` (`id`) ON DELETE CASCADE;
+
+ALTER TABLE `film_genre`
+    ADD CONSTRAINT IF NOT EXISTS `film_genre_film_fk` FOREIGN KEY (`film_id`) REFERENCES `films` (`film_id`) ON DELETE CASCADE;
+
+ALTER TABLE `film_genre`
+    ADD CONSTRAINT IF NOT EXISTS `film_genre_genre_fk` FOREIGN KEY (`genre_id`) REFERENCES `genre` (`genre_id`) ON DELETE CASCADE;
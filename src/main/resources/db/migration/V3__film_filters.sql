@@ -0,0 +1,15 @@
+-- Популярные фильмы жанра: счётчик лайков копируется в film_genre, тогда ORDER BY likes_count DESC, film_id LIMIT ?
+-- с фильтром по жанру читается из одного индекса без соединения всех фильмов жанра и сортировки.
+-- Копия меняется в тех же транзакциях, что и films.likes_count.
+ALTER TABLE `film_genre`
+    ADD COLUMN IF NOT EXISTS `likes_count` bigint NOT NULL DEFAULT 0;
+
+UPDATE `film_genre` fg
+SET `likes_count` = (SELECT f.`likes_count` FROM `films` f WHERE f.`film_id` = fg.`film_id`);
+
+-- Популярные фильмы жанра
+CREATE INDEX IF NOT EXISTS `film_genre_likes_count_idx` ON `film_genre` (`genre_id`, `likes_count` DESC, `film_id`);
+-- Популярные фильмы рейтинга
+CREATE INDEX IF NOT EXISTS `films_mpa_likes_count_idx` ON `films` (`mpa_id`, `likes_count` DESC, `film_id`);
+-- Фильтр по годам выпуска: условие на release_date, а не на YEAR(release_date), читается по диапазону индекса
+CREATE INDEX IF NOT EXISTS `films_release_date_idx` ON `films` (`release_date`, `film_id`);
@@ -0,0 +1,9 @@
+-- Время лайка для рейтинга /films/trending. Лайки, поставленные до миграции, получают условное время
+-- 1970-01-01 и в окно трендов не попадают; текущее время по умолчанию ставится только новым лайкам.
+ALTER TABLE `film_like`
+    ADD COLUMN IF NOT EXISTS `created_at` timestamp with time zone NOT NULL
+        DEFAULT TIMESTAMP WITH TIME ZONE '1970-01-01 00:00:00+00';
+ALTER TABLE `film_like` ALTER COLUMN `created_at` SET DEFAULT CURRENT_TIMESTAMP;
+
+-- Лайки за последние дни при старте читаются по диапазону индекса, а не всей таблицей
+CREATE INDEX IF NOT EXISTS `film_like_created_at_idx` ON `film_like` (`created_at`);
@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate;
+
+import org.flywaydb.core.Flyway;
+import org.h2.tools.RunScript;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.service.TrendingIndex;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
+import ru.yandex.practicum.filmorate.storage.UserDbStorage;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Повторный запуск на той же файловой базе сохраняет данные, в том числе в режиме быстрого старта,
+ * а база, созданная прежним schema.sql, обновляется миграциями без потери данных
+ */
+class PersistentStartupTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testRestartKeepsDataAndSchemaVersion() {
+        long filmId;
+        try (ConfigurableApplicationContext context = start(false)) {
+            filmId = context.getBean(FilmDbStorage.class).add(Film.builder()
+                    .name("film")
+                    .description("description")
+                    .releaseDate(LocalDate.of(2000, 1, 1))
+                    .duration(100)
+                    .mpa(new Mpa(1, null))
+                    .build()).getId();
+        }
+
+        for (boolean fastStart : new boolean[]{true, false}) {
+            try (ConfigurableApplicationContext context = start(fastStart)) {
+                assertThat(context.getBean(FilmDbStorage.class).getFilmById(filmId).getName()).isEqualTo("film");
+                assertThat(context.getBean(ReferenceDataCache.class).getMpaAll()).hasSize(5);
+                assertThat(context.getBean(Flyway.class).info().pending()).isEmpty();
+            }
+        }
+    }
+
+    @Test
+    public void testMigratesDatabaseCreatedByLegacySchema() throws Exception {
+        String url = "jdbc:h2:file:" + dir.resolve("filmorate").toAbsolutePath();
+        try (Connection connection = DriverManager.getConnection(url, "sa", "password");
+             Reader script = new InputStreamReader(getClass().getResourceAsStream("/legacy/filmorate.sql"),
+                     StandardCharsets.UTF_8)) {
+            RunScript.execute(connection, script);
+        }
+
+        try (ConfigurableApplicationContext context = start(false)) {
+            FilmDbStorage filmStorage = context.getBean(FilmDbStorage.class);
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+            assertThat(filmStorage.getPopularFilms(2)).extracting(Film::getName).containsExactly("second", "first");
+            assertThat(filmStorage.getPopularFilms(FilmFilter.builder().genreId(2).build(), 10))
+                    .extracting(Film::getName).containsExactly("second");
+            assertThat(filmStorage.reconcileLikesCount()).isZero();
+            assertThat(context.getBean(UserDbStorage.class).getFriendList(1)).hasSize(1);
+            assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS " +
+                    "WHERE CONSTRAINT_SCHEMA = 'PUBLIC' AND CONSTRAINT_TYPE = 'FOREIGN KEY'", Integer.class))
+                    .isEqualTo(7);
+            assertThat(context.getBean(Flyway.class).info().pending()).isEmpty();
+            // лайки, поставленные до V4, не считаются свежими
+            TrendingIndex trendingIndex = context.getBean(TrendingIndex.class);
+            for (String window : trendingIndex.getWindows()) {
+                assertThat(trendingIndex.getTop(window, 10)).isEmpty();
+            }
+        }
+    }
+
+    private ConfigurableApplicationContext start(boolean fastStart) {
+        return new SpringApplicationBuilder(FilmorateApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:file:" + dir.resolve("filmorate").toAbsolutePath(),
+                        "--filmorate.startup.fast-start=" + fastStart);
+    }
+}
@@ -0,0 +1,109 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genres;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Каждый запрос на чтение обращается к хранилищу ровно столько раз, сколько нужно: число SQL-запросов
+ * берётся из filmorate.jdbc.statements, поэтому повторный вызов сервиса или хранилища роняет тест
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+@AutoConfigureTestDatabase
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class ControllerServiceCallsTest {
+    private final MockMvc mockMvc;
+    private final MeterRegistry meterRegistry;
+    private final FilmService filmService;
+    private final UserService userService;
+
+    @BeforeEach
+    public void beforeEach() {
+        long user = userService.add(new User("user@mail.ru", "user", "user", LocalDate.of(1990, 1, 1))).getId();
+        long other = userService.add(new User("other@mail.ru", "other", "other", LocalDate.of(1990, 1, 1))).getId();
+        long friend = userService.add(new User("friend@mail.ru", "friend", "friend", LocalDate.of(1990, 1, 1)))
+                .getId();
+        userService.addFriend(user, friend);
+        userService.addFriend(other, friend);
+        userService.addFriend(user, other);
+
+        long film = filmService.add(Film.builder()
+                .name("фильм")
+                .description("description")
+                .releaseDate(LocalDate.of(2005, 1, 1))
+                .duration(100)
+                .mpa(new Mpa(1, null))
+                .genres(List.of(Genres.builder().id(2).build()))
+                .build()).getId();
+        filmService.addLike(film, other);
+    }
+
+    @Test
+    public void testFilmEndpointsQueryStorageOnce() throws Exception {
+        // список фильмов и жанры к нему
+        assertThat(statements(get("/films"))).isEqualTo(2);
+        assertThat(statements(get("/films/1"))).isEqualTo(2);
+        // id берутся из рейтинга в памяти, из базы читаются только сами фильмы
+        assertThat(statements(get("/films/popular"))).isEqualTo(2);
+        assertThat(statements(get("/films/search").param("q", "фильм"))).isEqualTo(2);
+        assertThat(statements(get("/films/popular").param("genreId", "2").param("yearFrom", "2000")))
+                .isEqualTo(2);
+        assertThat(statements(get("/films/popular/boards"))).isEqualTo(2);
+        assertThat(statements(get("/films/trending"))).isEqualTo(2);
+    }
+
+    @Test
+    public void testUserEndpointsQueryStorageOnce() throws Exception {
+        assertThat(statements(get("/users"))).isEqualTo(1);
+        assertThat(statements(get("/users/1"))).isEqualTo(1);
+        assertThat(statements(get("/users/1/friends"))).isEqualTo(1);
+        assertThat(statements(get("/users/1/friends/common/2"))).isEqualTo(1);
+        assertThat(statements(get("/users/1/feed"))).isEqualTo(2);
+    }
+
+    @Test
+    public void testReferenceEndpointsAreServedFromMemory() throws Exception {
+        assertThat(statements(get("/genres"))).isZero();
+        assertThat(statements(get("/genres/1"))).isZero();
+        assertThat(statements(get("/mpa"))).isZero();
+        assertThat(statements(get("/mpa/1"))).isZero();
+    }
+
+    private long statements(MockHttpServletRequestBuilder request) throws Exception {
+        double before = totalStatements();
+        mockMvc.perform(request).andExpect(status().isOk());
+        return Math.round(totalStatements() - before);
+    }
+
+    private double totalStatements() {
+        return meterRegistry.find("filmorate.jdbc.statements").summaries().stream()
+                .mapToDouble(DistributionSummary::totalAmount)
+                .sum();
+    }
+}
@@ -0,0 +1,138 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genres;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Реактивный режим отдаёт те же адреса и тот же JSON, что и обычный
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.main.web-application-type=reactive")
+@AutoConfigureWebTestClient
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class ReactiveControllerTest {
+    private final WebTestClient webTestClient;
+
+    @Test
+    public void testFilmsStreamAsJsonArray() {
+        webTestClient.get().uri("/films").exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBody().json("[]");
+
+        long first = createFilm("first", List.of(Genres.builder().id(2).build(), Genres.builder().id(1).build()));
+        long second = createFilm("second", null);
+
+        webTestClient.get().uri("/films").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].id").isEqualTo(first)
+                .jsonPath("$[0].mpa.name").isEqualTo("G")
+                .jsonPath("$[0].genres[0].id").isEqualTo(1)
+                .jsonPath("$[0].genres[1].name").isEqualTo("Драма")
+                .jsonPath("$[1].id").isEqualTo(second)
+                .jsonPath("$[1].genres.length()").isEqualTo(0);
+
+        webTestClient.get().uri("/films?after={after}&limit=1", first).exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].id").isEqualTo(second);
+
+        webTestClient.get().uri("/films/{id}", second).exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.name").isEqualTo("second")
+                .jsonPath("$.genres").doesNotExist();
+    }
+
+    @Test
+    public void testPopularFilmsFollowLikes() {
+        long user = createUser("user");
+        long first = createFilm("first", null);
+        long second = createFilm("second", null);
+
+        webTestClient.put().uri("/films/{id}/like/{userId}", second, user).exchange()
+                .expectStatus().isOk()
+                .expectBody(Boolean.class).isEqualTo(true);
+
+        webTestClient.get().uri("/films/popular?count=2").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].id").isEqualTo(second)
+                .jsonPath("$[1].id").isEqualTo(first);
+    }
+
+    @Test
+    public void testFriendsAndCommonFriends() {
+        long user = createUser("user");
+        long other = createUser("other");
+        long friend = createUser("friend");
+
+        webTestClient.put().uri("/users/{id}/friends/{friendId}", user, friend).exchange().expectStatus().isOk();
+        webTestClient.put().uri("/users/{id}/friends/{friendId}", other, friend).exchange().expectStatus().isOk();
+        webTestClient.put().uri("/users/{id}/friends/{friendId}", user, other).exchange().expectStatus().isOk();
+
+        webTestClient.get().uri("/users/{id}/friends", user).exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].id").isEqualTo(other)
+                .jsonPath("$[1].login").isEqualTo("friend");
+
+        webTestClient.get().uri("/users/{id}/friends/common/{otherId}", user, other).exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].id").isEqualTo(friend);
+    }
+
+    @Test
+    public void testErrorsKeepStatusCodes() {
+        webTestClient.get().uri("/films/{id}", 9999).exchange().expectStatus().isNotFound();
+        webTestClient.get().uri("/users/{id}", 9999).exchange().expectStatus().isNotFound();
+        webTestClient.get().uri("/users?limit=0").exchange().expectStatus().isBadRequest();
+        webTestClient.get().uri("/films/popular?count=-1").exchange().expectStatus().isBadRequest();
+        webTestClient.get().uri("/films/popular?count=2147483647").exchange().expectStatus().isBadRequest();
+        webTestClient.get().uri("/films/popular?yearTo=2147483647").exchange().expectStatus().isBadRequest();
+        webTestClient.get().uri("/films/popular?yearFrom=-5").exchange().expectStatus().isBadRequest();
+    }
+
+    private long createFilm(String name, List<Genres> genres) {
+        Film film = Film.builder()
+                .name(name)
+                .description("description")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .mpa(new Mpa(1, null))
+                .genres(genres)
+                .build();
+
+        return webTestClient.post().uri("/films").bodyValue(film).exchange()
+                .expectStatus().isOk()
+                .expectBody(Film.class).returnResult().getResponseBody().getId();
+    }
+
+    private long createUser(String login) {
+        User user = new User(login + "@mail.ru", login, login, LocalDate.of(1990, 1, 1));
+
+        return webTestClient.post().uri("/users").bodyValue(user).exchange()
+                .expectStatus().isOk()
+                .expectBody(User.class).returnResult().getResponseBody().getId();
+    }
+}
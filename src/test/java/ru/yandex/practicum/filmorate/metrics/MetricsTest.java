@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genres;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.FilmDbStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class MetricsTest {
+    private final MockMvc mockMvc;
+    private final MeterRegistry meterRegistry;
+    private final FilmDbStorage filmStorage;
+
+    @Test
+    public void testRequestRecordsStorageTimerAndStatementCount() throws Exception {
+        filmStorage.add(Film.builder()
+                .name("film")
+                .description("description")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .mpa(new Mpa(2, null))
+                .genres(List.of(Genres.builder().id(1).build()))
+                .build());
+
+        mockMvc.perform(get("/films").param("after", "0").param("limit", "10")).andExpect(status().isOk());
+
+        Timer timer = meterRegistry.find(StorageTimingAspect.TIMER_NAME)
+                .tag("class", "FilmDbStorage")
+                .tag("method", "getFilmPage")
+                .timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isEqualTo(1);
+
+        DistributionSummary statements = meterRegistry.find(StatementsPerRequestInterceptor.SUMMARY_NAME)
+                .tag("method", "GET")
+                .tag("uri", "/films")
+                .summary();
+        assertThat(statements).isNotNull();
+        assertThat(statements.count()).isEqualTo(1);
+        // страница фильмов и жанры этих фильмов
+        assertThat(statements.totalAmount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testPrometheusEndpointExposesStorageAndPoolMetrics() throws Exception {
+        mockMvc.perform(get("/films")).andExpect(status().isOk());
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/plain"))
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(scrape)
+                .contains("filmorate_storage_seconds_bucket")
+                .contains("filmorate_jdbc_statements")
+                .contains("hikaricp_connections_acquire_seconds")
+                .contains("http_server_requests_seconds");
+    }
+}
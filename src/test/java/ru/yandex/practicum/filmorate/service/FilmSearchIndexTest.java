@@ -0,0 +1,146 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class FilmSearchIndexTest {
+    private FilmSearchIndex index;
+
+    @BeforeEach
+    public void beforeEach() {
+        index = new FilmSearchIndex(mock(FilmStorage.class));
+        index.add(film(1, "Ёлки", "Новогодняя комедия о чудесах"));
+        index.add(film(2, "Ирония судьбы", "Комедия про ёлки, баню и Ленинград"));
+        index.add(film(3, "Брат", "Криминальная драма о Петербурге"));
+        index.add(film(4, "Брат 2", "Продолжение драмы: брат едет в Америку"));
+    }
+
+    @Test
+    public void testTokenizeLowercasesCyrillicAndReplacesYo() {
+        assertThat(FilmSearchIndex.tokenize("Ёлки-палки, ИРОНИЯ судьбы 2!"))
+                .containsExactly("елки", "палки", "ирония", "судьбы", "2");
+    }
+
+    @Test
+    public void testNameMatchRanksAboveDescriptionMatch() {
+        assertThat(index.search("ёлки", 0, 10)).containsExactly(1L, 2L);
+        assertThat(index.search("КОМЕДИЯ", 0, 10)).containsExactly(1L, 2L);
+        assertThat(index.search("брат", 0, 10)).containsExactly(4L, 3L);
+    }
+
+    @Test
+    public void testAllWordsMustMatch() {
+        assertThat(index.search("комедия ленинград", 0, 10)).containsExactly(2L);
+        assertThat(index.search("комедия америку", 0, 10)).isEmpty();
+        assertThat(index.search("боевик", 0, 10)).isEmpty();
+        assertThat(index.search(" , ", 0, 10)).isEmpty();
+    }
+
+    @Test
+    public void testPagination() {
+        assertThat(index.search("брат", 0, 1)).containsExactly(4L);
+        assertThat(index.search("брат", 1, 1)).containsExactly(3L);
+        assertThat(index.search("брат", 2, 1)).isEmpty();
+    }
+
+    @Test
+    public void testUpdateAndDeleteChangeResults() {
+        index.add(film(3, "Сестра", "Криминальная драма о Петербурге"));
+        assertThat(index.search("брат", 0, 10)).containsExactly(4L);
+        assertThat(index.search("сестра", 0, 10)).containsExactly(3L);
+
+        index.delete(4);
+        assertThat(index.search("брат", 0, 10)).isEmpty();
+        assertThat(index.search("драма", 0, 10)).containsExactly(3L);
+    }
+
+    @Test
+    public void testSkippedBlocksDoNotChangeResults() {
+        String[] words = {"а", "б", "в", "г", "д", "е", "ж", "з"};
+        Random random = new Random(1);
+        Map<Long, Film> films = new HashMap<>();
+        index = new FilmSearchIndex(mock(FilmStorage.class));
+        for (int i = 0; i < 20_000; i++) {
+            long id = 1 + random.nextInt(5_000);
+            if (random.nextInt(10) == 0) {
+                index.delete(id);
+                films.remove(id);
+            } else {
+                Film film = film(id, text(random, words, 1 + random.nextInt(3)), text(random, words, random.nextInt(8)));
+                index.add(film);
+                films.put(id, film);
+            }
+        }
+
+        for (String query : List.of("а", "б в", "а б в", "з е", "ж ж д")) {
+            assertThat(index.search(query, 5, 20)).as(query).isEqualTo(bruteForce(films, query, 5, 20));
+        }
+    }
+
+    private List<Long> bruteForce(Map<Long, Film> films, String query, int offset, int limit) {
+        Map<String, Map<Long, Integer>> weights = new HashMap<>();
+        for (Film film : films.values()) {
+            for (String token : FilmSearchIndex.tokenize(film.getName())) {
+                weights.computeIfAbsent(token, key -> new HashMap<>())
+                        .merge(film.getId(), FilmSearchIndex.NAME_WEIGHT, Integer::sum);
+            }
+            for (String token : FilmSearchIndex.tokenize(film.getDescription())) {
+                weights.computeIfAbsent(token, key -> new HashMap<>()).merge(film.getId(), 1, Integer::sum);
+            }
+        }
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(FilmSearchIndex.tokenize(query)));
+        terms.sort(Comparator.comparingInt(term -> weights.get(term).size()));
+
+        Map<Long, Double> scores = new HashMap<>();
+        for (Film film : films.values()) {
+            double score = 0;
+            for (String term : terms) {
+                Integer weight = weights.get(term).get(film.getId());
+                if (weight == null) {
+                    score = -1;
+                    break;
+                }
+                score += weight * Math.log(1 + (double) films.size() / weights.get(term).size());
+            }
+            if (score >= 0) {
+                scores.put(film.getId(), score);
+            }
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .skip(offset)
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    private String text(Random random, String[] words, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            text.append(words[Math.min(random.nextInt(words.length), random.nextInt(words.length))]).append(' ');
+        }
+        return text.toString();
+    }
+
+    private Film film(long id, String name, String description) {
+        return Film.builder()
+                .id(id)
+                .name(name)
+                .description(description)
+                .build();
+    }
+}
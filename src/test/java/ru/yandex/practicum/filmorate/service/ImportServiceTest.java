@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"filmorate.import.chunk-size=2", "filmorate.import.batch-size=2"})
+@AutoConfigureTestDatabase
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class ImportServiceTest {
+    private final ImportService importService;
+    private final FilmService filmService;
+    private final UserService userService;
+
+    @Test
+    public void testImportReportsBadLinesAndLoadsTheRest() throws IOException {
+        ImportResult users = importService.importUsers(ndjson(
+                "{\"email\":\"a@test.ru\",\"login\":\"a\",\"name\":\"\",\"birthday\":\"2000-01-01\"}",
+                "{\"email\":\"wrong\",\"login\":\"b\",\"name\":\"b\",\"birthday\":\"2000-01-01\"}",
+                "{\"email\":\"c@test.ru\",\"login\":\"c\",\"name\":\"c\",\"birthday\":\"2000-01-01\"}"));
+        ImportResult films = importService.importFilms(ndjson(
+                "{\"name\":\"one\",\"description\":\"d\",\"releaseDate\":\"2000-01-01\",\"duration\":90," +
+                        "\"mpa\":{\"id\":1},\"genres\":[{\"id\":2}]}",
+                "{not json",
+                "{\"name\":\"two\",\"description\":\"d\",\"releaseDate\":\"2000-01-01\",\"duration\":90," +
+                        "\"mpa\":{\"id\":1}}"));
+        ImportResult likes = importService.importLikes(ndjson(
+                "{\"filmId\":2,\"userId\":1}",
+                "{\"filmId\":2,\"userId\":1}",
+                "{\"filmId\":2,\"userId\":2}",
+                "{\"filmId\":1,\"userId\":2}",
+                "{\"filmId\":99,\"userId\":1}"));
+
+        assertThat(users.getImported()).isEqualTo(2);
+        assertThat(users.getErrors()).extracting(ImportResult.LineError::getLine).containsExactly(2L);
+        assertThat(userService.getUserById(1).getName()).isEqualTo("a");
+        assertThat(films.getImported()).isEqualTo(2);
+        assertThat(films.getErrors()).extracting(ImportResult.LineError::getLine).containsExactly(2L);
+        assertThat(filmService.getFilmById(1).getGenres()).hasSize(1);
+        assertThat(likes.getImported()).isEqualTo(3);
+        assertThat(likes.getErrors()).extracting(ImportResult.LineError::getLine).containsExactly(2L, 5L);
+        assertThat(filmService.getPopularFilms(2)).extracting(Film::getId).containsExactly(2L, 1L);
+    }
+
+    private InputStream ndjson(String... lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+}
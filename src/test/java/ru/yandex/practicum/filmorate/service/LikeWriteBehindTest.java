@@ -0,0 +1,158 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import ru.yandex.practicum.filmorate.exception.OverloadedException;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LikeWriteBehindTest {
+    private static final long NEVER = TimeUnit.HOURS.toMillis(1);
+
+    @TempDir
+    Path dir;
+
+    private FilmStorage filmStorage;
+    private PopularityIndex popularityIndex;
+    private LikeWriteBehind writeBehind;
+
+    @BeforeEach
+    public void beforeEach() {
+        filmStorage = mock(FilmStorage.class);
+        when(filmStorage.getLikesCountByFilm()).thenReturn(Map.of(1L, 5L, 2L, 3L));
+        popularityIndex = new PopularityIndex(filmStorage);
+        popularityIndex.load();
+    }
+
+    @AfterEach
+    public void afterEach() throws Exception {
+        if (writeBehind != null) {
+            writeBehind.stop();
+        }
+    }
+
+    @Test
+    public void testPendingLikesAreVisibleAndLikeUnlikeCoalesces() throws Exception {
+        writeBehind = start(100, 100, 0, null);
+        writeBehind.addLike(2, 10);
+        writeBehind.addLike(2, 11);
+        writeBehind.addLike(2, 12);
+        assertThat(popularityIndex.getTop(2)).containsExactly(2L, 1L);
+
+        assertThat(writeBehind.deleteLike(2, 12)).isTrue();
+        assertThat(writeBehind.deleteLike(2, 12)).isFalse();
+        assertThat(writeBehind.size()).isEqualTo(3);
+
+        when(filmStorage.writeLikes(anyCollection(), anyCollection())).thenReturn(Map.of(2L, 2L));
+        writeBehind.flush();
+
+        ArgumentCaptor<Collection<FilmLike>> liked = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<Collection<FilmLike>> unliked = ArgumentCaptor.forClass(Collection.class);
+        verify(filmStorage).writeLikes(liked.capture(), unliked.capture());
+        assertThat(liked.getValue()).containsExactlyInAnyOrder(new FilmLike(2, 10), new FilmLike(2, 11));
+        assertThat(unliked.getValue()).containsExactly(new FilmLike(2, 12));
+        assertThat(writeBehind.size()).isZero();
+
+        when(filmStorage.countLikesByFilm()).thenReturn(Map.of(1L, 5L, 2L, 5L));
+        assertThat(popularityIndex.checkConsistency()).isZero();
+    }
+
+    @Test
+    public void testFlushCorrectsRatingForLikesThatChangedNothing() throws Exception {
+        writeBehind = start(100, 100, 0, null);
+        writeBehind.addLike(2, 10);
+        writeBehind.addLike(2, 11);
+        writeBehind.addLike(2, 12);
+
+        when(filmStorage.writeLikes(anyCollection(), anyCollection())).thenReturn(Map.of());
+        writeBehind.flush();
+
+        when(filmStorage.countLikesByFilm()).thenReturn(Map.of(1L, 5L, 2L, 3L));
+        assertThat(popularityIndex.checkConsistency()).isZero();
+    }
+
+    @Test
+    public void testConsistencyCheckWaitsForPendingLikes() throws Exception {
+        writeBehind = start(100, 100, 0, null);
+        writeBehind.addLike(2, 10);
+        writeBehind.addLike(2, 11);
+        writeBehind.addLike(2, 12);
+        when(filmStorage.countLikesByFilm()).thenReturn(Map.of(1L, 5L, 2L, 3L));
+
+        assertThat(popularityIndex.checkConsistency()).isZero();
+        verify(filmStorage, never()).countLikesByFilm();
+        assertThat(popularityIndex.getTop(2)).containsExactly(2L, 1L);
+
+        when(filmStorage.writeLikes(anyCollection(), anyCollection())).thenReturn(Map.of(2L, 3L));
+        writeBehind.flush();
+        when(filmStorage.countLikesByFilm()).thenReturn(Map.of(1L, 5L, 2L, 6L));
+        assertThat(popularityIndex.checkConsistency()).isZero();
+        verify(filmStorage).countLikesByFilm();
+    }
+
+    @Test
+    public void testFullQueueRejectsAfterTimeout() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(filmStorage.writeLikes(anyCollection(), anyCollection())).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await();
+            return Map.of();
+        });
+        writeBehind = start(2, 1, 50, null);
+
+        writeBehind.addLike(1, 10);
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+        writeBehind.addLike(1, 11);
+        writeBehind.addLike(1, 12);
+
+        assertThat(writeBehind.deleteLike(1, 12)).isTrue();
+        assertThatThrownBy(() -> writeBehind.addLike(1, 13)).isInstanceOf(OverloadedException.class);
+        release.countDown();
+    }
+
+    @Test
+    public void testLogIsReplayedOnStartup() throws Exception {
+        LikeWriteBehind crashed = start(100, 100, 0, dir);
+        crashed.addLike(1, 10);
+        crashed.addLike(2, 10);
+        crashed.deleteLike(2, 10);
+        crashed.deleteLike(1, 11);
+        verify(filmStorage, never()).writeLikes(any(), any());
+
+        when(filmStorage.writeLikes(anyCollection(), anyCollection())).thenReturn(Map.of(1L, 1L));
+        popularityIndex.load();
+        writeBehind = start(100, 100, 0, dir);
+
+        verify(filmStorage).writeLikes(List.of(new FilmLike(1, 10)),
+                List.of(new FilmLike(2, 10), new FilmLike(1, 11)));
+        assertThat(popularityIndex.getTop(1)).containsExactly(1L);
+        assertThat(dir.toFile().list()).hasSize(1);
+    }
+
+    private LikeWriteBehind start(int capacity, int batchSize, long offerTimeoutMs, Path logDir) throws Exception {
+        LikeWriteBehind likeWriteBehind = new LikeWriteBehind(filmStorage, popularityIndex, capacity, batchSize,
+                NEVER, offerTimeoutMs, logDir == null ? "" : logDir.toString(), false);
+        likeWriteBehind.start();
+        return likeWriteBehind;
+    }
+}
@@ -0,0 +1,162 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.FilmCategories;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PopularityIndexTest {
+    private FilmStorage filmStorage;
+    private PopularityIndex popularityIndex;
+
+    @BeforeEach
+    public void beforeEach() {
+        filmStorage = mock(FilmStorage.class);
+        when(filmStorage.getLikesCountByFilm()).thenReturn(Map.of(1L, 5L, 2L, 3L, 3L, 0L));
+        popularityIndex = new PopularityIndex(filmStorage);
+        popularityIndex.load();
+    }
+
+    @Test
+    public void testGetTopOrdersByLikesThenById() {
+        popularityIndex.addFilm(4);
+        popularityIndex.addLike(3);
+        popularityIndex.addLike(3);
+        popularityIndex.addLike(3);
+
+        assertThat(popularityIndex.getTop(10)).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(popularityIndex.getTop(2)).containsExactly(1L, 2L);
+    }
+
+    @Test
+    public void testConcurrentLikesKeepCountsConsistent() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    popularityIndex.addLike(3);
+                    popularityIndex.addLike(2);
+                    popularityIndex.deleteLike(2);
+                    assertThat(popularityIndex.getTop(3)).hasSize(3).doesNotHaveDuplicates();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        when(filmStorage.countLikesByFilm()).thenReturn(Map.of(1L, 5L, 2L, 3L, 3L, 8000L));
+        assertThat(popularityIndex.checkConsistency()).isZero();
+        assertThat(popularityIndex.getTop(3)).containsExactly(3L, 1L, 2L);
+    }
+
+    @Test
+    public void testCheckConsistencyRepairsDrift() {
+        popularityIndex.addFilm(4);
+        when(filmStorage.countLikesByFilm()).thenReturn(Map.of(1L, 5L, 2L, 7L, 3L, 0L));
+
+        assertThat(popularityIndex.checkConsistency()).isEqualTo(2);
+        assertThat(popularityIndex.getTop(10)).containsExactly(2L, 1L, 3L);
+    }
+
+    @Test
+    public void testCategoryRankingsMatchBruteForceAndRebuild() {
+        when(filmStorage.getLikesCountByFilm()).thenReturn(Map.of());
+        popularityIndex.load();
+        Random random = new Random(7);
+        Map<Long, Long> likes = new HashMap<>();
+        Map<Long, FilmCategories> categories = new HashMap<>();
+
+        for (int i = 0; i < 20_000; i++) {
+            long filmId = 1 + random.nextInt(300);
+            int action = random.nextInt(20);
+            if (!likes.containsKey(filmId)) {
+                FilmCategories filmCategories = randomCategories(random);
+                popularityIndex.addFilm(filmId, filmCategories);
+                likes.put(filmId, 0L);
+                categories.put(filmId, filmCategories);
+            } else if (action == 0) {
+                popularityIndex.deleteFilm(filmId);
+                likes.remove(filmId);
+                categories.remove(filmId);
+            } else if (action < 3) {
+                FilmCategories filmCategories = randomCategories(random);
+                popularityIndex.updateCategories(filmId, filmCategories);
+                categories.put(filmId, filmCategories);
+            } else if (action < 8) {
+                popularityIndex.deleteLike(filmId);
+                likes.put(filmId, Math.max(0, likes.get(filmId) - 1));
+            } else {
+                popularityIndex.addLike(filmId);
+                likes.merge(filmId, 1L, Long::sum);
+            }
+        }
+        assertMatchesBruteForce(likes, categories);
+
+        when(filmStorage.getLikesCountByFilm()).thenReturn(likes);
+        when(filmStorage.getCategoriesByFilm()).thenReturn(categories);
+        popularityIndex.load();
+        assertMatchesBruteForce(likes, categories);
+    }
+
+    private void assertMatchesBruteForce(Map<Long, Long> likes, Map<Long, FilmCategories> categories) {
+        Map<Integer, List<Long>> byGenre = new TreeMap<>();
+        Map<Integer, List<Long>> byMpa = new TreeMap<>();
+        Comparator<Long> byLikesDesc = Comparator.<Long>comparingLong(likes::get).reversed()
+                .thenComparingLong(Long::longValue);
+        for (int id = 1; id <= 6; id++) {
+            int categoryId = id;
+            List<Long> top = likes.keySet().stream()
+                    .filter(filmId -> categories.get(filmId).getGenreIds().contains(categoryId))
+                    .sorted(byLikesDesc)
+                    .limit(10)
+                    .collect(Collectors.toList());
+            if (!top.isEmpty()) {
+                byGenre.put(categoryId, top);
+            }
+            List<Long> mpaTop = likes.keySet().stream()
+                    .filter(filmId -> categories.get(filmId).getMpaId() == categoryId)
+                    .sorted(byLikesDesc)
+                    .limit(10)
+                    .collect(Collectors.toList());
+            if (!mpaTop.isEmpty()) {
+                byMpa.put(categoryId, mpaTop);
+            }
+        }
+
+        assertThat(popularityIndex.getTopByGenre(10)).isEqualTo(byGenre);
+        assertThat(popularityIndex.getTopByMpa(10)).isEqualTo(byMpa);
+        assertThat(popularityIndex.getTop(10)).isEqualTo(likes.keySet().stream()
+                .sorted(byLikesDesc)
+                .limit(10)
+                .collect(Collectors.toList()));
+    }
+
+    private FilmCategories randomCategories(Random random) {
+        List<Integer> genreIds = new ArrayList<>();
+        for (int genreId = 1; genreId <= 6; genreId++) {
+            if (random.nextInt(3) == 0) {
+                genreIds.add(genreId);
+            }
+        }
+        return new FilmCategories(1 + random.nextInt(5), genreIds);
+    }
+}
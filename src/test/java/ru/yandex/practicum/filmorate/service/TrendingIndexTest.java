@@ -0,0 +1,117 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class TrendingIndexTest {
+    private static final long MINUTE = Duration.ofMinutes(1).toMillis();
+
+    private final AtomicLong now = new AtomicLong(Duration.ofDays(20_000).toMillis());
+    private FilmStorage filmStorage;
+    private TrendingIndex trendingIndex;
+
+    @BeforeEach
+    public void beforeEach() {
+        filmStorage = mock(FilmStorage.class);
+        trendingIndex = new TrendingIndex(filmStorage, Duration.ofMinutes(1), Duration.ZERO, List.of("1h", "24h"),
+                now::get);
+    }
+
+    @Test
+    public void testExpiredBucketsLeaveOnlyTheirWindow() {
+        trendingIndex.addLikes(1, 3);
+        trendingIndex.addLikes(2, 1);
+        now.addAndGet(30 * MINUTE);
+        trendingIndex.addLikes(2, 3);
+        trendingIndex.expire();
+
+        assertThat(trendingIndex.getTop("1h", 10)).containsExactly(2L, 1L);
+
+        now.addAndGet(45 * MINUTE);
+        trendingIndex.expire();
+        assertThat(trendingIndex.getTop("1h", 10)).containsExactly(2L);
+        assertThat(trendingIndex.getTop("24h", 10)).containsExactly(2L, 1L);
+
+        trendingIndex.addLikes(2, -1);
+        assertThat(trendingIndex.getTop("24h", 10)).containsExactly(1L, 2L);
+        assertThat(trendingIndex.getTop("24h", 1)).containsExactly(1L);
+
+        trendingIndex.deleteFilm(1);
+        now.addAndGet(Duration.ofDays(1).toMillis());
+        trendingIndex.expire();
+        assertThat(trendingIndex.getTop("24h", 10)).isEmpty();
+    }
+
+    @Test
+    public void testLoadCountsStoredLikesOfLongestWindow() {
+        Instant since = Instant.ofEpochMilli((now.get() / MINUTE - 24 * 60 + 1) * MINUTE);
+        doAnswer(invocation -> {
+            BiConsumer<Long, Instant> action = invocation.getArgument(1);
+            action.accept(1L, Instant.ofEpochMilli(now.get() - Duration.ofHours(2).toMillis()));
+            action.accept(1L, Instant.ofEpochMilli(now.get() - Duration.ofHours(3).toMillis()));
+            action.accept(2L, Instant.ofEpochMilli(now.get() - Duration.ofMinutes(30).toMillis()));
+            return null;
+        }).when(filmStorage).streamLikesSince(eq(since), any());
+
+        trendingIndex.load();
+
+        assertThat(trendingIndex.getTop("1h", 10)).containsExactly(2L);
+        assertThat(trendingIndex.getTop("24h", 10)).containsExactly(1L, 2L);
+    }
+
+    @Test
+    public void testTopMatchesBruteForceOverSlidingWindows() {
+        Random random = new Random(11);
+        List<long[]> events = new ArrayList<>();
+
+        for (int i = 0; i < 50_000; i++) {
+            now.addAndGet(random.nextInt(10_000));
+            long filmId = 1 + random.nextInt(50);
+            long delta = random.nextInt(3) == 0 ? -1 : 1;
+            trendingIndex.addLikes(filmId, delta);
+            events.add(new long[]{now.get() / MINUTE, filmId, delta});
+
+            if (i % 1000 == 0) {
+                trendingIndex.expire();
+                assertThat(trendingIndex.getTop("1h", 10)).isEqualTo(bruteForce(events, 60));
+                assertThat(trendingIndex.getTop("24h", 10)).isEqualTo(bruteForce(events, 24 * 60));
+            }
+        }
+    }
+
+    private List<Long> bruteForce(List<long[]> events, long buckets) {
+        long from = now.get() / MINUTE - buckets + 1;
+        Map<Long, Long> likes = new HashMap<>();
+        for (long[] event : events) {
+            if (event[0] >= from) {
+                likes.merge(event[1], event[2], Long::sum);
+            }
+        }
+        return likes.entrySet().stream()
+                .filter(film -> film.getValue() > 0)
+                .sorted(Map.Entry.<Long, Long>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(10)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CachedUserStorageTest {
+    private UserStorage userStorage;
+    private CachedUserStorage cachedUserStorage;
+
+    @BeforeEach
+    public void beforeEach() {
+        userStorage = mock(UserStorage.class);
+        cachedUserStorage = new CachedUserStorage(userStorage, 2);
+        for (long id = 1; id <= 3; id++) {
+            when(userStorage.getUserById(id)).thenReturn(user(id, "user" + id));
+        }
+    }
+
+    @Test
+    public void testRepeatedReadsAreServedFromCache() {
+        cachedUserStorage.getUserById(1);
+        cachedUserStorage.getUserById(1).setName("changed by caller");
+
+        assertThat(cachedUserStorage.getUserById(1).getName()).isEqualTo("user1");
+        verify(userStorage, times(1)).getUserById(1);
+        assertThat(cachedUserStorage.getHits()).isEqualTo(2);
+        assertThat(cachedUserStorage.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedUserIsEvicted() {
+        cachedUserStorage.getUserById(1);
+        cachedUserStorage.getUserById(2);
+        cachedUserStorage.getUserById(1);
+        cachedUserStorage.getUserById(3);
+        cachedUserStorage.getUserById(2);
+
+        assertThat(cachedUserStorage.getEvictions()).isEqualTo(2);
+        verify(userStorage, times(2)).getUserById(2);
+        verify(userStorage, times(1)).getUserById(1);
+    }
+
+    @Test
+    public void testUpdateInvalidatesCachedUser() {
+        cachedUserStorage.getUserById(1);
+        when(userStorage.update(any())).thenReturn(user(1, "updated"));
+        when(userStorage.getUserById(1)).thenReturn(user(1, "updated"));
+
+        cachedUserStorage.update(user(1, "updated"));
+
+        assertThat(cachedUserStorage.getUserById(1).getName()).isEqualTo("updated");
+        verify(userStorage, times(2)).getUserById(1);
+    }
+
+    @Test
+    public void testReadStartedBeforeUpdateIsNotCached() {
+        when(userStorage.update(any())).thenReturn(user(1, "updated"));
+        when(userStorage.getUserById(1)).thenAnswer(invocation -> {
+            // запись завершается, пока чтение несёт прежнюю версию из хранилища
+            cachedUserStorage.update(user(1, "updated"));
+            return user(1, "user1");
+        }).thenReturn(user(1, "updated"));
+
+        assertThat(cachedUserStorage.getUserById(1).getName()).isEqualTo("user1");
+        assertThat(cachedUserStorage.getUserById(1).getName()).isEqualTo("updated");
+    }
+
+    @Test
+    public void testGetUsersByIdsFetchesOnlyMissesInOneCall() {
+        cachedUserStorage.getUserById(2);
+        when(userStorage.getUsersByIds(List.of(1L, 3L))).thenReturn(List.of(user(1, "user1"), user(3, "user3")));
+
+        List<User> users = cachedUserStorage.getUsersByIds(List.of(1L, 2L, 3L));
+
+        assertThat(users).extracting(User::getId).containsExactly(1L, 2L, 3L);
+        verify(userStorage, times(1)).getUsersByIds(List.of(1L, 3L));
+    }
+
+    private User user(long id, String name) {
+        return new User(id, name + "@test.ru", name, name, LocalDate.of(2000, 1, 1));
+    }
+}
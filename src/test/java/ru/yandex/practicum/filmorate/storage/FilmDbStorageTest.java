@@ -0,0 +1,309 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.Genres;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@Import(StatementCounter.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class FilmDbStorageTest {
+    private final FilmDbStorage filmStorage;
+    private final UserDbStorage userStorage;
+    private final JdbcTemplate jdbcTemplate;
+    private final ReferenceDataCache referenceDataCache;
+    private final StatementCounter statementCounter;
+
+    @Test
+    public void testGetFilmAllStatementCountDoesNotDependOnFilmCount() {
+        addFilms(3);
+        long statementsForSmallTable = countStatements(() -> filmStorage.getFilmAll());
+
+        addFilms(30);
+        long statementsForLargeTable = countStatements(() -> filmStorage.getFilmAll());
+
+        assertThat(filmStorage.getFilmAll()).hasSize(33);
+        assertThat(statementsForLargeTable).isEqualTo(statementsForSmallTable).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    public void testGetPopularFilmsStatementCountDoesNotDependOnFilmCount() {
+        addFilms(3);
+        long statementsForSmallTable = countStatements(() -> filmStorage.getPopularFilms(3));
+
+        addFilms(30);
+        long statementsForLargeTable = countStatements(() -> filmStorage.getPopularFilms(30));
+
+        assertThat(statementsForLargeTable).isEqualTo(statementsForSmallTable).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    public void testGetFilmAllReturnsMpaAndGenres() {
+        addFilms(2);
+
+        List<Film> films = filmStorage.getFilmAll();
+
+        assertThat(films).allSatisfy(film -> {
+            assertThat(film.getMpa().getName()).isEqualTo("PG");
+            assertThat(film.getGenres()).extracting(Genres::getName).containsExactly("Комедия", "Драма");
+        });
+    }
+
+    @Test
+    public void testUpdateWritesOnlyChangedGenresAndReturnsInput() {
+        addFilms(1);
+        Film film = filmStorage.getFilmById(1);
+        film.setGenres(List.of(Genres.builder().id(3).build(), Genres.builder().id(2).build(),
+                Genres.builder().id(3).build()));
+
+        statementCounter.reset();
+        Film updated = filmStorage.update(film);
+
+        assertThat(statementCounter.getCount()).isEqualTo(4);
+        assertThat(updated.getMpa().getName()).isEqualTo("PG");
+        assertThat(updated.getGenres()).extracting(Genres::getName).containsExactly("Драма", "Мультфильм");
+        assertThat(filmStorage.getFilmById(1).getGenres()).extracting(Genres::getId).containsExactly(2, 3);
+
+        film.setId(100);
+        assertThatThrownBy(() -> filmStorage.update(film)).isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    public void testReferenceDataIsServedWithoutQueries() {
+        long statements = countStatements(() -> {
+            assertThat(referenceDataCache.getMpaAll()).hasSize(5);
+            assertThat(referenceDataCache.getMpaById(3).getName()).isEqualTo("PG-13");
+            assertThat(referenceDataCache.getGenreAll()).hasSize(6);
+            assertThat(referenceDataCache.getGenreById(6).getName()).isEqualTo("Фантастика");
+        });
+
+        assertThat(statements).isZero();
+        assertThatThrownBy(() -> referenceDataCache.getMpaById(100)).isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    public void testFilmPagesAndStreamCoverAllFilms() {
+        addFilms(25);
+        List<Film> paged = new ArrayList<>();
+        List<Film> page = filmStorage.getFilmPage(0, 10);
+        while (!page.isEmpty()) {
+            paged.addAll(page);
+            page = filmStorage.getFilmPage(page.get(page.size() - 1).getId(), 10);
+        }
+        List<Film> streamed = new ArrayList<>();
+        filmStorage.streamFilmAll(streamed::add);
+
+        assertThat(paged).hasSize(25).isSortedAccordingTo(Comparator.comparingLong(Film::getId));
+        assertThat(streamed).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(paged);
+    }
+
+    @Test
+    public void testStreamRunsWithItsOwnTimeout() {
+        addFilms(1);
+        List<Long> timeouts = new ArrayList<>();
+
+        filmStorage.streamFilmAll(film -> timeouts.add(jdbcTemplate.queryForObject("SELECT SETTING_VALUE " +
+                "FROM INFORMATION_SCHEMA.SETTINGS WHERE SETTING_NAME = 'QUERY_TIMEOUT'", Long.class)));
+
+        // запрос внутри выгрузки идёт в её транзакции и получает оставшееся время выгрузки
+        assertThat(timeouts).singleElement().satisfies(timeout ->
+                assertThat(timeout).isGreaterThan((FilmDbStorage.STREAM_TIMEOUT_SECONDS - 10) * 1000L));
+    }
+
+    @Test
+    public void testPopularFilmsFollowLikesCountAndReconcileFixesDrift() {
+        addFilms(3);
+        long firstUserId = userStorage.add(new User("a@test.ru", "a", "a", LocalDate.of(2000, 1, 1))).getId();
+        long secondUserId = userStorage.add(new User("b@test.ru", "b", "b", LocalDate.of(2000, 1, 1))).getId();
+        filmStorage.addLike(3, firstUserId);
+        filmStorage.addLike(3, secondUserId);
+        filmStorage.addLike(2, firstUserId);
+        filmStorage.addLike(1, secondUserId);
+        filmStorage.deleteLike(1, secondUserId);
+
+        assertThat(filmStorage.getPopularFilms(3)).extracting(Film::getId).containsExactly(3L, 2L, 1L);
+        assertThat(filmStorage.reconcileLikesCount()).isZero();
+
+        jdbcTemplate.update("UPDATE films SET likes_count = 10 WHERE film_id = 1");
+        assertThat(filmStorage.getPopularFilms(1)).extracting(Film::getId).containsExactly(1L);
+        assertThat(filmStorage.getLikesCountByFilm()).containsEntry(1L, 10L);
+        assertThat(filmStorage.countLikesByFilm()).containsEntry(1L, 0L).containsEntry(3L, 2L);
+
+        assertThat(filmStorage.reconcileLikesCount()).isEqualTo(1);
+        assertThat(filmStorage.getPopularFilms(3)).extracting(Film::getId).containsExactly(3L, 2L, 1L);
+
+        // копия счётчика в жанре разошлась, а films.likes_count верен
+        jdbcTemplate.update("UPDATE film_genre SET likes_count = 10 WHERE film_id = 2 AND genre_id = 1");
+        FilmFilter genre = FilmFilter.builder().genreId(1).build();
+        assertThat(filmStorage.getPopularFilms(genre, 1)).extracting(Film::getId).containsExactly(2L);
+
+        assertThat(filmStorage.reconcileLikesCount()).isEqualTo(1);
+        assertThat(filmStorage.getPopularFilms(genre, 3)).extracting(Film::getId).containsExactly(3L, 2L, 1L);
+        assertThat(filmStorage.reconcileLikesCount()).isZero();
+    }
+
+    @Test
+    public void testFriendsFeedRanksByFriendLikesAndSkipsOwnLikes() {
+        addFilms(4);
+        List<Long> users = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            users.add(userStorage.add(new User("u" + i + "@test.ru", "u" + i, "u" + i,
+                    LocalDate.of(2000, 1, 1))).getId());
+        }
+        long user = users.get(0);
+        userStorage.addFriend(user, users.get(1));
+        userStorage.addFriend(user, users.get(2));
+        filmStorage.addLike(1, users.get(1));
+        filmStorage.addLike(1, users.get(2));
+        filmStorage.addLike(2, users.get(1));
+        filmStorage.addLike(3, users.get(2));
+        filmStorage.addLike(3, user);
+        filmStorage.addLike(4, users.get(3));
+
+        List<Film> feed = new ArrayList<>();
+        assertThat(countStatements(() -> feed.addAll(filmStorage.getFriendsFeed(user, 10)))).isEqualTo(2);
+        assertThat(feed).extracting(Film::getId).containsExactly(1L, 2L);
+        assertThat(feed.get(0).getGenres()).hasSize(2);
+        assertThat(filmStorage.getFriendsFeed(user, 1)).extracting(Film::getId).containsExactly(1L);
+        assertThat(filmStorage.getFriendsFeed(users.get(3), 10)).isEmpty();
+    }
+
+    @Test
+    public void testStreamLikesSinceReadsOnlyRecentLikes() {
+        addFilms(2);
+        long userId = userStorage.add(new User("a@test.ru", "a", "a", LocalDate.of(2000, 1, 1))).getId();
+        filmStorage.addLike(1, userId);
+        filmStorage.addLike(2, userId);
+        jdbcTemplate.update("UPDATE film_like SET created_at = DATEADD('DAY', -2, created_at) WHERE film_id = 1");
+
+        List<Long> recent = new ArrayList<>();
+        filmStorage.streamLikesSince(Instant.now().minus(Duration.ofDays(1)), (filmId, createdAt) -> {
+            assertThat(createdAt).isBefore(Instant.now().plusSeconds(1));
+            recent.add(filmId);
+        });
+
+        assertThat(recent).containsExactly(2L);
+    }
+
+    @Test
+    public void testAddCostsOneInsertPlusOneGenreBatch() {
+        Film film = Film.builder()
+                .name("film")
+                .description("description")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .mpa(new Mpa(2, null))
+                .build();
+
+        assertThat(countStatements(() -> filmStorage.add(film))).isEqualTo(1);
+        assertThat(film.getId()).isEqualTo(1);
+
+        film.setGenres(List.of(Genres.builder().id(1).build(), Genres.builder().id(2).build()));
+        assertThat(countStatements(() -> filmStorage.add(film))).isEqualTo(2);
+        assertThat(film.getId()).isEqualTo(2);
+        assertThat(filmStorage.getFilmById(2).getGenres()).extracting(Genres::getId).containsExactly(1, 2);
+
+        User user = new User("user@test.ru", "user", "user", LocalDate.of(2000, 1, 1));
+        assertThat(countStatements(() -> userStorage.add(user))).isEqualTo(1);
+        assertThat(userStorage.getUserById(user.getId()).getLogin()).isEqualTo("user");
+    }
+
+    @Test
+    public void testFilterFilmsAndPopularFilmsInOneStatement() {
+        addFilm(1, 1990, 90, 1, 2);
+        addFilm(2, 2001, 120, 2);
+        addFilm(1, 2005, 150, 2, 3);
+        addFilm(3, 2010, 100);
+        for (int i = 0; i < 3; i++) {
+            long userId = userStorage.add(new User(i + "@test.ru", "u" + i, "u" + i, LocalDate.of(2000, 1, 1))).getId();
+            for (long filmId = 1; filmId <= 3 - i; filmId++) {
+                filmStorage.addLike(filmId, userId);
+            }
+        }
+
+        FilmFilter drama = FilmFilter.builder().genreId(2).build();
+        assertThat(filmStorage.getFilmPage(drama, 0, 10)).extracting(Film::getId).containsExactly(1L, 2L, 3L);
+        assertThat(filmStorage.getFilmPage(drama, 1, 1)).extracting(Film::getId).containsExactly(2L);
+        assertThat(filmStorage.getFilmPage(FilmFilter.builder().mpaId(1).yearFrom(2000).build(), 0, 10))
+                .extracting(Film::getId).containsExactly(3L);
+        assertThat(filmStorage.getFilmPage(FilmFilter.builder().yearFrom(2001).yearTo(2005).minDuration(130).build(),
+                0, 10)).extracting(Film::getId).containsExactly(3L);
+        assertThat(countStatements(() -> filmStorage.getPopularFilms(drama, 10))).isLessThanOrEqualTo(2);
+        assertThat(filmStorage.getPopularFilms(drama, 2)).extracting(Film::getId).containsExactly(1L, 2L);
+        assertThat(filmStorage.getPopularFilms(FilmFilter.builder().genreId(3).mpaId(1).build(), 10))
+                .extracting(Film::getId).containsExactly(3L);
+        assertThat(filmStorage.getPopularFilms(FilmFilter.builder().mpaId(1).build(), 10))
+                .extracting(Film::getId).containsExactly(1L, 3L);
+
+        Film film = filmStorage.getFilmById(4);
+        film.setGenres(List.of(Genres.builder().id(2).build()));
+        filmStorage.update(film);
+        film = filmStorage.getFilmById(1);
+        film.setGenres(List.of(Genres.builder().id(1).build()));
+        filmStorage.update(film);
+        filmStorage.addLike(4, 1);
+        filmStorage.addLike(4, 2);
+        filmStorage.addLike(4, 3);
+        filmStorage.deleteLike(2, 1);
+        filmStorage.deleteLike(2, 2);
+
+        assertThat(filmStorage.getPopularFilms(drama, 10)).extracting(Film::getId).containsExactly(4L, 3L, 2L);
+    }
+
+    private long countStatements(Runnable action) {
+        statementCounter.reset();
+        action.run();
+        return statementCounter.getCount();
+    }
+
+    private void addFilm(int mpaId, int year, int duration, int... genreIds) {
+        List<Genres> genres = new ArrayList<>();
+        for (int genreId : genreIds) {
+            genres.add(Genres.builder().id(genreId).build());
+        }
+        filmStorage.add(Film.builder()
+                .name("film")
+                .description("description")
+                .releaseDate(LocalDate.of(year, 6, 1))
+                .duration(duration)
+                .mpa(new Mpa(mpaId, null))
+                .genres(genres)
+                .build());
+    }
+
+    private void addFilms(int count) {
+        for (int i = 0; i < count; i++) {
+            filmStorage.add(Film.builder()
+                    .name("film " + i)
+                    .description("description " + i)
+                    .releaseDate(LocalDate.of(2000, 1, 1))
+                    .duration(100)
+                    .mpa(new Mpa(2, null))
+                    .genres(List.of(Genres.builder().id(1).build(), Genres.builder().id(2).build()))
+                    .build());
+        }
+    }
+}
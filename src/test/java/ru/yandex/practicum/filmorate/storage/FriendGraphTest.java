@@ -0,0 +1,66 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FriendGraphTest {
+
+    @Test
+    public void testFriendsAreKeptSortedWithoutDuplicates() {
+        FriendGraph graph = new FriendGraph();
+
+        assertThat(graph.addEdge(1, 5)).isTrue();
+        assertThat(graph.addEdge(1, 3)).isTrue();
+        assertThat(graph.addEdge(1, 4)).isTrue();
+        assertThat(graph.addEdge(1, 3)).isFalse();
+        assertThat(graph.removeEdge(1, 4)).isTrue();
+        assertThat(graph.removeEdge(1, 4)).isFalse();
+
+        assertThat(graph.friends(1)).containsExactly(3, 5);
+        assertThat(graph.friends(2)).isEmpty();
+        assertThat(graph.edgeCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testCommonFriendsAndFriendsOfFriends() {
+        FriendGraph graph = new FriendGraph();
+        graph.addEdge(1, 2);
+        graph.addEdge(1, 3);
+        graph.addEdge(1, 4);
+        graph.addEdge(5, 3);
+        graph.addEdge(5, 4);
+        graph.addEdge(5, 6);
+        graph.addEdge(2, 1);
+        graph.addEdge(2, 3);
+        graph.addEdge(2, 7);
+        graph.addEdge(3, 8);
+        graph.addEdge(3, 7);
+
+        assertThat(graph.commonFriends(1, 5)).containsExactly(3, 4);
+        assertThat(graph.friendsOfFriends(1)).containsExactly(7, 8);
+
+        graph.removeVertex(3);
+        assertThat(graph.commonFriends(1, 5)).containsExactly(4);
+        assertThat(graph.friendsOfFriends(1)).containsExactly(7);
+    }
+
+    @Test
+    public void testMemoryPerEdge() {
+        // замер на 10 млн рёбер печатает FriendGraphMemoryReport из профиля benchmark
+        int edges = Integer.getInteger("filmorate.graph.edges", 10_000);
+        int friendsPerUser = 100;
+        int users = edges / friendsPerUser;
+        FriendGraph graph = new FriendGraph(users);
+
+        for (long user = 0; user < users; user++) {
+            for (int k = 0; k < friendsPerUser; k++) {
+                graph.addEdge(user, (user * 31 + k * 977L) % users);
+            }
+        }
+        graph.trimToSize();
+        double bytesPerEdge = (double) graph.estimateBytes() / graph.edgeCount();
+
+        assertThat(bytesPerEdge).isLessThan(10);
+    }
+}
@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Планы выполнения запросов хранилищ: каждый фильтр и соединение идут по индексу, а не полным просмотром таблицы
+ */
+@SpringBootTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class SchemaIndexTest {
+    private final JdbcTemplate jdbcTemplate;
+
+    static Stream<Arguments> queries() {
+        return Stream.of(
+                Arguments.of("SELECT * FROM films ORDER BY likes_count DESC, film_id LIMIT 10",
+                        "FILMS_LIKES_COUNT_IDX"),
+                Arguments.of("SELECT * FROM films WHERE film_id > 100 ORDER BY film_id LIMIT 10",
+                        "PRIMARY_KEY"),
+                Arguments.of("SELECT film_id FROM films WHERE mpa_id = 1", "FILMS_MPA_ID_IDX"),
+                Arguments.of("SELECT f.* FROM film_genre fg JOIN films f ON f.film_id = fg.film_id " +
+                        "WHERE fg.genre_id = 1 ORDER BY fg.genre_id, fg.likes_count DESC, fg.film_id LIMIT 10",
+                        "FILM_GENRE_LIKES_COUNT_IDX"),
+                Arguments.of("SELECT f.* FROM films f USE INDEX (films_mpa_likes_count_idx) WHERE f.mpa_id = 1 " +
+                        "ORDER BY f.mpa_id, f.likes_count DESC, f.film_id LIMIT 10", "FILMS_MPA_LIKES_COUNT_IDX"),
+                Arguments.of("SELECT f.* FROM films f WHERE f.release_date >= DATE '2000-01-01' " +
+                        "AND f.release_date < DATE '2001-01-01'", "FILMS_RELEASE_DATE_IDX"),
+                Arguments.of("SELECT film_id, genre_id FROM film_genre WHERE film_id IN (1, 2, 3) " +
+                        "ORDER BY film_id, genre_id", "PRIMARY_KEY"),
+                Arguments.of("SELECT film_id FROM film_genre WHERE genre_id = 1", "FILM_GENRE_GENRE_ID_IDX"),
+                Arguments.of("SELECT film_id FROM film_like WHERE user_id = 1", "FILM_LIKE_USER_ID_IDX"),
+                Arguments.of("SELECT user_id FROM film_like WHERE film_id = 1", "PRIMARY_KEY"),
+                Arguments.of("SELECT film_id, created_at FROM film_like " +
+                        "WHERE created_at >= TIMESTAMP WITH TIME ZONE '2000-01-01 00:00:00+00'",
+                        "FILM_LIKE_CREATED_AT_IDX"),
+                Arguments.of("SELECT u.* FROM friendship fs LEFT JOIN users u ON fs.user2_id = u.id " +
+                        "WHERE fs.user1_id = 1", "PRIMARY_KEY"),
+                Arguments.of("SELECT user1_id FROM friendship WHERE user2_id = 1", "FRIENDSHIP_USER2_ID_IDX"),
+                Arguments.of("SELECT fl.film_id, COUNT(*) FROM friendship fs " +
+                        "JOIN film_like fl ON fl.user_id = fs.user2_id " +
+                        "WHERE fs.user1_id = 1 " +
+                        "AND fl.film_id NOT IN (SELECT own.film_id FROM film_like own WHERE own.user_id = 1) " +
+                        "GROUP BY fl.film_id", "FILM_LIKE_USER_ID_IDX"),
+                Arguments.of("SELECT u.* FROM friendship fs1 " +
+                        "JOIN friendship fs2 ON fs1.user2_id = fs2.user2_id " +
+                        "JOIN users u ON fs1.user2_id = u.id " +
+                        "WHERE fs1.user1_id = 1 AND fs2.user1_id = 2", "PRIMARY_KEY")
+        );
+    }
+
+    @MethodSource("queries")
+    @ParameterizedTest(name = "{0}")
+    public void testQueryUsesIndex(String sql, String index) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+
+        assertThat(plan).contains(index).doesNotContain("tableScan");
+    }
+
+    @ValueSource(strings = {
+            "SELECT f.* FROM films f ORDER BY f.likes_count DESC, f.film_id LIMIT 10",
+            "SELECT f.* FROM film_genre fg JOIN films f ON f.film_id = fg.film_id " +
+                    "WHERE fg.genre_id = 1 ORDER BY fg.genre_id, fg.likes_count DESC, fg.film_id LIMIT 10",
+            "SELECT f.* FROM films f USE INDEX (films_mpa_likes_count_idx) WHERE f.mpa_id = 1 " +
+                    "ORDER BY f.mpa_id, f.likes_count DESC, f.film_id LIMIT 10"
+    })
+    @ParameterizedTest(name = "{0}")
+    public void testPopularQueryReadsIndexWithoutSort(String sql) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+
+        assertThat(plan).contains("/* index sorted */");
+    }
+}
@@ -0,0 +1,64 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Подсчёт выполненных SQL-запросов: оборачивает DataSource и считает подготовленные statement'ы
+ */
+@TestComponent
+class StatementCounter implements BeanPostProcessor {
+    private static final Set<String> STATEMENT_METHODS = Set.of("prepareStatement", "prepareCall",
+            "createStatement");
+
+    private final AtomicLong count = new AtomicLong();
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource)) {
+            return bean;
+        }
+        return new DelegatingDataSource((DataSource) bean) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return countingConnection(super.getConnection());
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return countingConnection(super.getConnection(username, password));
+            }
+        };
+    }
+
+    public void reset() {
+        count.set(0);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    private Connection countingConnection(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    if (STATEMENT_METHODS.contains(method.getName())) {
+                        count.incrementAndGet();
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
@@ -0,0 +1,87 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFilter;
+import ru.yandex.practicum.filmorate.model.Genres;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.PopularityIndex;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class UserDbStorageTest {
+    private final UserDbStorage userStorage;
+    private final FilmDbStorage filmStorage;
+    private final UserService userService;
+    private final FilmService filmService;
+    private final PopularityIndex popularityIndex;
+
+    @Test
+    public void testGetCommonFriendsReturnsIntersectionOfFriendLists() {
+        long user = addUser("user");
+        long other = addUser("other");
+        long common1 = addUser("common1");
+        long common2 = addUser("common2");
+        long onlyUserFriend = addUser("onlyUserFriend");
+        userStorage.addFriend(user, common1);
+        userStorage.addFriend(user, common2);
+        userStorage.addFriend(user, onlyUserFriend);
+        userStorage.addFriend(other, common1);
+        userStorage.addFriend(other, common2);
+        userStorage.addFriend(other, user);
+
+        assertThat(userStorage.getCommonFriends(user, other))
+                .extracting(User::getLogin)
+                .containsExactlyInAnyOrder("common1", "common2");
+        assertThat(userStorage.getCommonFriends(user, onlyUserFriend)).isEmpty();
+    }
+
+    @Test
+    public void testDeleteUserDecrementsLikesCountOfLikedFilms() {
+        long user = addUser("user");
+        long other = addUser("other");
+        long liked = addFilm("liked");
+        long rival = addFilm("rival");
+        filmService.addLike(liked, user);
+        filmService.addLike(rival, other);
+        assertThat(popularityIndex.getTop(2)).containsExactly(liked, rival);
+
+        assertThat(userService.delete(user)).isTrue();
+
+        assertThat(filmStorage.getLikesCountByFilm()).isEqualTo(filmStorage.countLikesByFilm());
+        assertThat(filmStorage.getLikesCountByFilm()).containsEntry(liked, 0L).containsEntry(rival, 1L);
+        assertThat(filmStorage.getPopularFilms(FilmFilter.builder().genreId(1).build(), 2))
+                .extracting(Film::getId).containsExactly(rival, liked);
+        assertThat(popularityIndex.getTop(2)).containsExactly(rival, liked);
+    }
+
+    private long addFilm(String name) {
+        return filmService.add(Film.builder()
+                .name(name)
+                .description("description")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .mpa(new Mpa(1, null))
+                .genres(List.of(Genres.builder().id(1).build()))
+                .build()).getId();
+    }
+
+    private long addUser(String login) {
+        return userStorage.add(new User(login + "@test.ru", login, login, LocalDate.of(2000, 1, 1))).getId();
+    }
+}
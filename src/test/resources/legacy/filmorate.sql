@@ -1,3 +1,4 @@
+-- База, созданная schema.sql и data.sql до перехода на миграции Flyway, с данными
 DROP TABLE IF EXISTS users, films, friendship, film_like, film_genre, genre, mpa;
 
 CREATE TABLE IF NOT EXISTS `users`
@@ -76,3 +77,41 @@ ALTER TABLE `film_like`
 ALTER TABLE `film_genre`
     ADD FOREIGN KEY (`genre_id`) REFERENCES `genre` (`genre_id`) ON DELETE CASCADE;
 
+
+MERGE INTO mpa
+(mpa_id, name)
+VALUES (1, 'G'),
+    (2, 'PG'),
+    (3, 'PG-13'),
+    (4, 'R'),
+    (5, 'NC-17');
+
+MERGE INTO genre
+    (genre_id, name)
+    VALUES (1, 'Комедия'),
+    (2, 'Драма'),
+    (3, 'Мультфильм'),
+    (4, 'Ужасы'),
+    (5, 'Детектив'),
+    (6, 'Фантастика');
+
+
+INSERT INTO users (email, login, name, birthday)
+VALUES ('a@test.ru', 'a', 'a', DATE '2000-01-01'),
+    ('b@test.ru', 'b', 'b', DATE '2000-01-01');
+
+INSERT INTO films (name, rate, mpa_id, description, release_date, duration)
+VALUES ('first', 0, 1, 'first film', DATE '2000-01-01', 100),
+    ('second', 0, 2, 'second film', DATE '2001-01-01', 100);
+
+INSERT INTO film_genre (film_id, genre_id)
+VALUES (1, 1),
+    (2, 2);
+
+INSERT INTO film_like (film_id, user_id)
+VALUES (2, 1),
+    (2, 2),
+    (1, 1);
+
+INSERT INTO friendship (user1_id, user2_id, status)
+VALUES (1, 2, 'confirmed');